@@ -4,7 +4,7 @@ import com.pedroedrasousa.cutlistoptimizer.CutListOptimizerService;
 import com.pedroedrasousa.cutlistoptimizer.CutListOptimizerServiceImpl;
 import com.pedroedrasousa.cutlistoptimizer.RunningTasks;
 import com.pedroedrasousa.cutlistoptimizer.model.Configuration;
-import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
+import com.pedroedrasousa.cutlistoptimizer.model.QuantifiedTileDimensions;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
@@ -21,7 +21,7 @@ public class CutListOptimizerServiceProxy implements CutListOptimizerService {
     }
 
     @Override
-    public String submitTask(List<TileDimensions> tilesToFit, List<TileDimensions> stockTiles, Configuration cfg) {
+    public String submitTask(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, Configuration cfg) {
         return cutListOptimizerService.submitTask(tilesToFit, stockTiles, cfg);
     }
 
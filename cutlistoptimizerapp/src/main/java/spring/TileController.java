@@ -1,6 +1,8 @@
 package spring;
 
+import com.pedroedrasousa.cutlistoptimizer.PanelPatternCache;
 import com.pedroedrasousa.cutlistoptimizer.RunningTasks;
+import com.pedroedrasousa.cutlistoptimizer.model.QuantifiedTileDimensions;
 import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
 import com.pedroedrasousa.cutlistoptimizer.model.TillingRequestDTO;
 import org.slf4j.Logger;
@@ -38,12 +40,18 @@ public class TileController {
         return 0;
     }
 
+    @CrossOrigin(origins = "*")
+    @RequestMapping(value = "/panel-pattern-cache-stats", method = RequestMethod.GET)
+    public PanelPatternCache.Stats getPanelPatternCacheStats() {
+        return PanelPatternCache.getInstance().getStats();
+    }
+
     @CrossOrigin(origins = "*")
     @RequestMapping(value = "/compute-tilling", method = RequestMethod.POST)
     public String tilling(@RequestBody TillingRequestDTO tilling, HttpServletRequest request) {
 
-        List<TileDimensions> tilesToFit = new ArrayList<>();
-        List<TileDimensions> stockTiles = new ArrayList<>();
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
 
         // Log IP information
         try {
@@ -55,18 +63,22 @@ public class TileController {
             e.printStackTrace();
         }
 
+        // Tiles are passed along with their quantity, the engine only expands them while placing
         for (TillingRequestDTO.TileInfoDTO tileInfoDTO : tilling.getTiles()) {
-            if (tileInfoDTO.isEnabled() && tileInfoDTO.getWidth() > 0 && tileInfoDTO.getHeight() > 0) {
-                for (int i = 0; i < tileInfoDTO.getCount(); i++) {
-                    tilesToFit.add(new TileDimensions(tileInfoDTO.getId(), tileInfoDTO.getWidth(), tileInfoDTO.getHeight()));
-                }
+            if (tileInfoDTO.isEnabled() && tileInfoDTO.getWidth() > 0 && tileInfoDTO.getHeight() > 0 && tileInfoDTO.getCount() > 0) {
+                TileDimensions tileDimensions = new TileDimensions(tileInfoDTO.getId(), tileInfoDTO.getWidth(), tileInfoDTO.getHeight());
+                tilesToFit.add(new QuantifiedTileDimensions(tileDimensions, tileInfoDTO.getCount()));
             }
         }
 
+        // Stock tiles are not expanded, each entry is passed along with its quantity
         for (TillingRequestDTO.TileInfoDTO tileInfoDTO : tilling.getBaseTiles()) {
             if (tileInfoDTO.isEnabled() && tileInfoDTO.getWidth() > 0 && tileInfoDTO.getHeight() > 0) {
-                for (int i = 0; i < tileInfoDTO.getCount(); i++) {
-                    stockTiles.add(new TileDimensions(tileInfoDTO.getId(), tileInfoDTO.getWidth(), tileInfoDTO.getHeight()));
+                TileDimensions tileDimensions = new TileDimensions(tileInfoDTO.getId(), tileInfoDTO.getWidth(), tileInfoDTO.getHeight());
+                if (tileInfoDTO.isUnlimited()) {
+                    stockTiles.add(new QuantifiedTileDimensions(tileDimensions, QuantifiedTileDimensions.UNLIMITED));
+                } else if (tileInfoDTO.getCount() > 0) {
+                    stockTiles.add(new QuantifiedTileDimensions(tileDimensions, tileInfoDTO.getCount()));
                 }
             }
         }
@@ -0,0 +1,548 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.*;
+import com.pedroedrasousa.cutlistoptimizer.schedule.BeamWidthSchedule;
+import com.pedroedrasousa.cutlistoptimizer.schedule.BeamWidthScheduleFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Beam search over permutations of the tile groups, for each candidate stock solution.
+ * Every permutation and stock solution pair is computed by a {@link CutListThread} on the context pool.
+ */
+public class BeamSearchEngine implements SolverEngine {
+
+    private final static Logger logger = LoggerFactory.getLogger(BeamSearchEngine.class);
+
+    /**
+     * Number of candidate stock solutions to keep ready when computing in pipelined mode.
+     */
+    private static final int STOCK_SOLUTIONS_LOOK_AHEAD = 2;
+
+    /**
+     * Time allowed for fitting the edited tiles into a previous solution before falling back to a full search.
+     */
+    private static final int WARM_START_BUDGET_MS = 2000;
+
+    /**
+     * Beam width of the first iteration in anytime mode, doubled on every following iteration up to the maximum.
+     */
+    private static final int ANYTIME_MIN_BEAM_WIDTH = 4;
+
+    private static final int ANYTIME_MAX_BEAM_WIDTH = 1024;
+
+    private StockPanelPicker stockPanelPicker = StockPanelPickerImpl.getInstance();
+
+    /**
+     * Blocks the permutations were packed in, null if tiles are placed one by one.
+     */
+    private BlockPacking blockPacking;
+
+    /**
+     * Beam width of the current anytime iteration, 0 if derived from the search profile.
+     */
+    private int beamWidth;
+
+    @Override
+    public String getName() {
+        return "beam";
+    }
+
+    /**
+     *
+     * @param permutations
+     * @return Number of removed permutations.
+     */
+    private int removeDuplicatedPermutations(List<List<QuantifiedTileDimensions>> permutations) {
+
+        int count = 0;
+
+        Set<String> distinctPermutations = new HashSet<>();
+        for (Iterator<List<QuantifiedTileDimensions>> iterator = permutations.iterator(); iterator.hasNext(); ) {
+            List<QuantifiedTileDimensions> permutation = iterator.next();
+
+            // Build a string based on tile dimensions to represent the permutation.
+            // Consecutive runs with the same dimensions are merged, so different groups of the same tile compare equal.
+            StringBuilder sb = new StringBuilder();
+            String lastDimensions = null;
+            int lastQuantity = 0;
+            for (QuantifiedTileDimensions quantifiedTileDimensions : permutation) {
+                String dimensions = quantifiedTileDimensions.getTileDimensions().dimensionsToString();
+                if (dimensions.equals(lastDimensions)) {
+                    lastQuantity += quantifiedTileDimensions.getQuantity();
+                    continue;
+                }
+                if (lastDimensions != null) {
+                    sb.append(lastDimensions + "*" + lastQuantity);
+                }
+                lastDimensions = dimensions;
+                lastQuantity = quantifiedTileDimensions.getQuantity();
+            }
+            if (lastDimensions != null) {
+                sb.append(lastDimensions + "*" + lastQuantity);
+            }
+
+            // Remove this permutation if not distinct from previous ones
+            if (!distinctPermutations.add(sb.toString())) {
+                iterator.remove();
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Splits the tiles to fit in groups, each group is a tile type and the number of tiles of that type it contains.
+     * High quantity tile types may be split in more than one group, so they can be permuted independently.
+     */
+    private List<QuantifiedTileDimensions> generateGroups(List<QuantifiedTileDimensions> tilesToFit, Configuration cfg) {
+
+        // Create a list with all distinct tile dimensions, keeping the submission order
+        LinkedHashMap<String, QuantifiedTileDimensions> distincTileDimensions = new LinkedHashMap<>();
+        int nbrTiles = 0;
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tilesToFit) {
+            String tileDimensionsStr = quantifiedTileDimensions.getTileDimensions().toString();
+            QuantifiedTileDimensions existing = distincTileDimensions.get(tileDimensionsStr);
+            int quantity = quantifiedTileDimensions.getQuantity() + (existing != null ? existing.getQuantity() : 0);
+            distincTileDimensions.put(tileDimensionsStr, new QuantifiedTileDimensions(quantifiedTileDimensions.getTileDimensions(), quantity));
+            nbrTiles += quantifiedTileDimensions.getQuantity();
+        }
+
+        // Log distinct tile dimensions
+        StringBuilder sb = new StringBuilder();
+        for (String tileDimensions : distincTileDimensions.keySet()) {
+            sb.append(tileDimensions + "*" + distincTileDimensions.get(tileDimensions).getQuantity() + " ");
+        }
+        logger.info("Task[{}] TotalNbrTiles[{}] Tiles: {}", cfg.getTaskId(), nbrTiles, sb);
+
+
+
+        int splitGreaterThan = nbrTiles / distincTileDimensions.size();
+
+        List<QuantifiedTileDimensions> groups = new ArrayList<>();
+        int groupNbr = 0;
+        for (QuantifiedTileDimensions quantifiedTileDimensions : distincTileDimensions.values()) {
+
+            int quantity = quantifiedTileDimensions.getQuantity();
+            int remaining = quantity;
+
+            while (remaining > 0) {
+
+                // Only split in groups if the quantity justifies it, a group is closed once it holds more than half of the tiles
+                boolean split = groupNbr + distincTileDimensions.size() < 5 && quantity > splitGreaterThan;
+                int groupSize = split ? Math.min(remaining, quantity / 2 + 1) : remaining;
+
+                groups.add(new QuantifiedTileDimensions(new GroupedTileDimensions(quantifiedTileDimensions.getTileDimensions(), groupNbr), groupSize));
+                remaining -= groupSize;
+
+                if (split && groupSize > quantity / 2) {
+                    groupNbr++;
+                }
+            }
+        }
+
+        return groups;
+    }
+
+    @Override
+    public void solve(SolverContext context) {
+
+        List<QuantifiedTileDimensions> tilesToFit = context.getTilesToFit();
+        List<QuantifiedTileDimensions> stockTiles = context.getStockTiles();
+        Configuration cfg = context.getCfg();
+
+        // Log stock tile dimensions
+        StringBuilder sb = new StringBuilder();
+        for (QuantifiedTileDimensions stockTile : stockTiles) {
+            sb.append(stockTile + " ");
+        }
+        logger.info("Task[{}] StockTiles: {}", cfg.getTaskId(), sb);
+
+        List<QuantifiedTileDimensions> groups = generateGroups(tilesToFit, cfg);
+
+        final HashMap<GroupedTileDimensions, Integer> distincGroupTileDimensions = new HashMap<>();
+        for (QuantifiedTileDimensions group : groups) {
+            distincGroupTileDimensions.put((GroupedTileDimensions) group.getTileDimensions(), group.getQuantity());
+        }
+
+        logger.debug("Task[" + cfg.getTaskId() + "] Calculating permutations...");
+
+        List<GroupedTileDimensions> DistinctTileDimensions = new ArrayList<>(distincGroupTileDimensions.keySet());
+
+        // Sort by quantity
+        Collections.sort(DistinctTileDimensions, new Comparator<GroupedTileDimensions>() {
+            @Override
+            public int compare(GroupedTileDimensions o1, GroupedTileDimensions o2) {
+                return distincGroupTileDimensions.get(o2).compareTo(distincGroupTileDimensions.get(o1));
+            }
+        });
+
+        List<GroupedTileDimensions> toBePermuted;
+        List<GroupedTileDimensions> nonPermuted;
+
+        if (DistinctTileDimensions.size() > 5) {
+            // Get the first 5 elements. Permutations of this will be created.
+            toBePermuted = new ArrayList<>(DistinctTileDimensions.subList(0, 5));
+
+            // Get the remaining elements. These won't be permuted.
+            nonPermuted = new ArrayList<>(DistinctTileDimensions.subList(5, DistinctTileDimensions.size()));
+        } else {
+            toBePermuted = DistinctTileDimensions;
+            nonPermuted = new ArrayList<>();
+        }
+
+        // Get all possible combinations by permuting the order in witch the tiles are fitted
+        List<List<GroupedTileDimensions>> permutations = Arrangement.<GroupedTileDimensions>generatePermutations(toBePermuted);
+
+        // Add the tiles not included in the permutation
+        for (final List<GroupedTileDimensions> combination : permutations) {
+            combination.addAll(nonPermuted);
+        }
+
+
+        logger.debug("Task[" + cfg.getTaskId() + "] Sorting tiles according to permutations...");
+
+        // Create lists sorted according to the calculated permutations.
+        // Each permutation is a sequence of groups along with their quantities, tiles are only expanded while being placed.
+        List<List<QuantifiedTileDimensions>> tilesPermutations = new ArrayList<>();
+        for (final List<GroupedTileDimensions> combination : permutations) {
+            ArrayList<QuantifiedTileDimensions> solutionPermutation = new ArrayList<>();
+            for (GroupedTileDimensions groupedTileDimensions : combination) {
+                solutionPermutation.add(new QuantifiedTileDimensions(groupedTileDimensions, distincGroupTileDimensions.get(groupedTileDimensions)));
+            }
+            tilesPermutations.add(solutionPermutation);
+
+            // Ugly way of limiting the number of permutations. Would be slow.
+            if (tilesPermutations.size() >= context.getSearchProfile().getMaxNbrPermutations()) {
+                break;
+            }
+        }
+
+        // Identical tiles are placed in blocks, as a single tile
+        if (cfg.isBlockPacking()) {
+            blockPacking = new BlockPacking(stockTiles, cfg.getCutThickness());
+            for (int i = 0; i < tilesPermutations.size(); i++) {
+                tilesPermutations.set(i, blockPacking.pack(tilesPermutations.get(i)));
+            }
+        }
+
+        logger.info("Removing duplicated permutations...");
+
+        removeDuplicatedPermutations(tilesPermutations);
+
+        int spare = 0;
+        int startWith = 1;
+
+        // Calculate the required area for fitting every tile.
+        long requiredArea = 0;
+        for (QuantifiedTileDimensions tile : tilesToFit) {
+            requiredArea += tile.getTileDimensions().getArea() * tile.getQuantity();
+        }
+
+        int maxNbrPanels = context.getMaxNbrPanels();
+
+        // Each task iterates its own stock solutions
+        StockSolutionIterator stockSolutionIterator = stockPanelPicker.iterator(tilesToFit, stockTiles, 0f, spare, startWith, maxNbrPanels);
+
+        if (cfg.getWarmStartTaskId() != null && warmStart(context)) {
+            logger.info("Task[{}] Resumed from task {}", cfg.getTaskId(), cfg.getWarmStartTaskId());
+        } else if (cfg.isAnytime()) {
+            computeAnytime(tilesPermutations, requiredArea, context);
+        } else if (cfg.isPipelined()) {
+            computePipelined(tilesPermutations, stockSolutionIterator, requiredArea, context);
+        } else {
+            computeRounds(tilesPermutations, stockSolutionIterator, requiredArea, context);
+        }
+    }
+
+    /**
+     * Searches every permutation with a narrow beam first, then again with a doubled beam width on each iteration,
+     * until cancelled or the maximum width is reached. The best solution is published as soon as each thread finishes,
+     * so a usable solution is available early and improves the longer the search runs.
+     */
+    private void computeAnytime(List<List<QuantifiedTileDimensions>> tilesPermutations, long requiredArea, SolverContext context) {
+
+        Configuration cfg = context.getCfg();
+
+        for (beamWidth = ANYTIME_MIN_BEAM_WIDTH; beamWidth <= ANYTIME_MAX_BEAM_WIDTH && !context.isCancelled(); beamWidth *= 2) {
+
+            // Every iteration goes through the stock solutions from the start
+            StockSolutionIterator stockSolutionIterator = stockPanelPicker.iterator(context.getTilesToFit(), context.getStockTiles(), 0f, 0, 1, context.getMaxNbrPanels());
+
+            if (cfg.isPipelined()) {
+                computePipelined(tilesPermutations, stockSolutionIterator, requiredArea, context);
+            } else {
+                computeRounds(tilesPermutations, stockSolutionIterator, requiredArea, context);
+            }
+
+            Solution best = context.getIncumbent().getBest();
+            if (best != null) {
+                logger.info("Task[{}] Anytime beamWidth[{}] best: stock{} noFit[{}] nbrCuts[{}]", cfg.getTaskId(), beamWidth, best.getBasesAsString(), best.getNoFitTiles().size(), best.getNbrCuts());
+            }
+        }
+    }
+
+    private boolean submitCutListThread(List<QuantifiedTileDimensions> tilesPermutation, int permutationIndex, int nbrPermutations, StockSolution stockSolution, long requiredArea, SolverContext context) {
+        return submitCutListThread(tilesPermutation, permutationIndex, nbrPermutations, stockSolution, null, requiredArea, context);
+    }
+
+    /**
+     * @return Whether the thread was accepted by the pool, if not it's not counted as running.
+     */
+    private boolean submitCutListThread(List<QuantifiedTileDimensions> tilesPermutation, int permutationIndex, int nbrPermutations, StockSolution stockSolution, Solution initialSolution, long requiredArea, SolverContext context) {
+
+        float usedArea = (float)((double)requiredArea / (double) stockSolution.getArea());
+        int discardAbove = beamWidth;
+        if (discardAbove == 0) {
+            discardAbove = context.getSearchProfile().getBeamWidth(usedArea);
+
+            // Threads started late get no wider beam than the remaining time allows
+            if (context.getRemainingBudget() > 0) {
+                discardAbove = Math.min(discardAbove, SearchProfile.getSearchProfile(context.getRemainingBudget()).getBeamWidth(usedArea));
+            }
+        }
+
+        // Configured accuracy factor overrides the beam width
+        if (context.getCfg().getAccuracyFactor() > 0) {
+            discardAbove = context.getCfg().getAccuracyFactor();
+        }
+
+        CutListThread cutListThread = new CutListThread();
+        cutListThread.setContext(context);
+
+        cutListThread.setPermutationId(permutationIndex + 1);
+        cutListThread.setTiles(tilesPermutation);
+        cutListThread.setCfg(context.getCfg());
+        cutListThread.setAccuracyFactor(discardAbove);
+        cutListThread.setStockSolution(stockSolution);
+        cutListThread.setInitialSolution(initialSolution);
+        cutListThread.setBlockPacking(blockPacking);
+        BeamWidthSchedule beamWidthSchedule = BeamWidthScheduleFactory.getBeamWidthSchedule(context.getCfg().getBeamWidthSchedule());
+        if (beamWidthSchedule != null) {
+            cutListThread.setBeamWidthSchedule(beamWidthSchedule);
+        }
+
+        RunningTasks.Task task = context.getTask();
+        task.incrementRunningThreads();
+        task.incrementNbrTotalThreads();
+        task.setTotalIterations(nbrPermutations);
+
+        try {
+            context.getExecutor().execute(cutListThread);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Task[{}] Thread rejected by the pool", context.getCfg().getTaskId());
+            task.decrementRunningThreads();
+            task.decrementNbrTotalThreads();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Resumes from the final solution of the task this one was edited from.
+     * Tiles that were added or whose quantity increased are fitted into the previous layout, in a few different orders,
+     * within {@link #WARM_START_BUDGET_MS}.
+     *
+     * @return Whether every tile could be fitted, if not a full search is still needed.
+     */
+    private boolean warmStart(SolverContext context) {
+
+        Configuration cfg = context.getCfg();
+
+        List<QuantifiedTileDimensions> tilesToAdd = new ArrayList<>();
+        Solution seed = WarmStart.getInstance().seed(cfg.getWarmStartTaskId(), context.getTilesToFit(), context.getStockTiles(), cfg, context.getMaxNbrPanels(), tilesToAdd);
+        if (seed == null) {
+            return false;
+        }
+
+        // Solutions found by other engines don't count, the previous layout must have been resumed
+        Solution previousBest = context.getIncumbent().getBest();
+
+        long requiredArea = 0;
+        for (QuantifiedTileDimensions tile : tilesToAdd) {
+            requiredArea += tile.getTileDimensions().getArea() * tile.getQuantity();
+        }
+
+        // Try the new tiles as submitted, biggest area first and biggest dimension first
+        List<List<QuantifiedTileDimensions>> tilesPermutations = new ArrayList<>();
+        tilesPermutations.add(tilesToAdd);
+
+        List<QuantifiedTileDimensions> byArea = new ArrayList<>(tilesToAdd);
+        Collections.sort(byArea, new Comparator<QuantifiedTileDimensions>() {
+            public int compare(QuantifiedTileDimensions q1, QuantifiedTileDimensions q2) {
+                return Long.compare(q2.getTileDimensions().getArea(), q1.getTileDimensions().getArea());
+            }
+        });
+        tilesPermutations.add(byArea);
+
+        List<QuantifiedTileDimensions> byMaxDimension = new ArrayList<>(tilesToAdd);
+        Collections.sort(byMaxDimension, new Comparator<QuantifiedTileDimensions>() {
+            public int compare(QuantifiedTileDimensions q1, QuantifiedTileDimensions q2) {
+                return Integer.compare(q2.getTileDimensions().getMaxDimension(), q1.getTileDimensions().getMaxDimension());
+            }
+        });
+        tilesPermutations.add(byMaxDimension);
+
+        removeDuplicatedPermutations(tilesPermutations);
+
+        StockSolution stockSolution = new StockSolution(seed.getStockTilesDimensions());
+        for (int permutationIndex = 0; permutationIndex < tilesPermutations.size(); permutationIndex++) {
+            submitCutListThread(tilesPermutations.get(permutationIndex), permutationIndex, tilesPermutations.size(), stockSolution, seed, requiredArea, context);
+        }
+
+        long deadline = System.currentTimeMillis() + WARM_START_BUDGET_MS;
+        try {
+            while (context.getTask().getRunningThreads() > 0 && System.currentTimeMillis() < deadline && !context.isCancelled()) {
+                Thread.sleep(20);
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Task[{}] Interrupted", cfg.getTaskId());
+        }
+
+        return context.getIncumbent().isSolvedBesides(previousBest);
+    }
+
+    /**
+     * Computes the candidate stock solutions in rounds, every thread of a round must finish before the next one starts.
+     */
+    private void computeRounds(List<List<QuantifiedTileDimensions>> tilesPermutations, StockSolutionIterator stockSolutionIterator, long requiredArea, SolverContext context) {
+
+        Configuration cfg = context.getCfg();
+        int maxNbrStockSolutions = context.getSearchProfile().getMaxNbrStockSolutions();
+        int nbrStockSolutions = 0;
+
+        boolean done = false;
+        while (!done) {
+
+            List<StockSolution> stockSolution = new ArrayList<>();
+            StockSolution tmpStockSolution;
+
+            float usedArea2 = 1f;
+
+            while (usedArea2 > 0.8 && (maxNbrStockSolutions == 0 || nbrStockSolutions < maxNbrStockSolutions)) {
+                logger.debug("Task[" + cfg.getTaskId() + "] Getting candidate stock solutions...");
+                tmpStockSolution = stockSolutionIterator.next();
+                if (tmpStockSolution == null) {
+                    break;
+                }
+                stockSolution.add(tmpStockSolution);
+                nbrStockSolutions++;
+                usedArea2 = (float)((double)requiredArea / (double)tmpStockSolution.getArea());
+                logger.debug("Task[{}] Candidate stock {} usedArea[{}]", cfg.getTaskId(), tmpStockSolution, usedArea2);
+            }
+
+            if (stockSolution.size() == 0) {
+                logger.info("Task[{}] No more possible stock solutions", cfg.getTaskId());
+                done = true;
+            }
+
+            // Iterate through all permutations
+            int permutationIndex = -1;
+            for (List<QuantifiedTileDimensions> tilesPermutation : tilesPermutations) {
+                permutationIndex++;
+
+                for (StockSolution stockSolution1 : stockSolution) {
+                    submitCutListThread(tilesPermutation, permutationIndex, tilesPermutations.size(), stockSolution1, requiredArea, context);
+                }
+            }
+
+            for (;;) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                if (context.getExecutor().getActiveCount() == 0) {
+                    // If a good solution was found, we're done.
+                    if (context.getIncumbent().isSolved()) {
+                        done = true;
+                    }
+                    break;
+                }
+            }
+
+            if (context.getIncumbent().isSolved() || context.isCancelled()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Starts computing each candidate stock solution as soon as the pool has capacity for it, instead of waiting for
+     * every thread of a round to finish. Candidates are produced in a separate thread while the search is running.
+     */
+    private void computePipelined(List<List<QuantifiedTileDimensions>> tilesPermutations, StockSolutionIterator stockSolutionIterator, long requiredArea, SolverContext context) {
+
+        Configuration cfg = context.getCfg();
+        RunningTasks.Task task = context.getTask();
+
+        StockSolutionProducer producer = new StockSolutionProducer(stockSolutionIterator, STOCK_SOLUTIONS_LOOK_AHEAD, cfg.getTaskId());
+        Thread producerThread = new Thread(producer, "StockSolutionProducer-" + cfg.getTaskId());
+        producerThread.setDaemon(true);
+        producerThread.start();
+
+        int maxNbrStockSolutions = context.getSearchProfile().getMaxNbrStockSolutions();
+        int nbrStockSolutions = 0;
+        boolean isSubmitted = false;
+
+        // Candidate whose permutations are being submitted, and the next permutation to submit
+        StockSolution stockSolution = null;
+        int permutationIndex = 0;
+
+        try {
+            for (;;) {
+                // Stop if the task was stopped or a solution fitting every tile was found.
+                // Other engines may already have fitted every tile, at least one candidate is searched anyway.
+                if (context.isCancelled() || (context.getIncumbent().isSolved() && isSubmitted && stockSolution == null)) {
+                    break;
+                }
+
+                if (stockSolution == null) {
+                    if (maxNbrStockSolutions > 0 && nbrStockSolutions >= maxNbrStockSolutions) {
+                        logger.info("Task[{}] Searched {} stock solutions, as allowed by the search profile", cfg.getTaskId(), nbrStockSolutions);
+                        break;
+                    }
+
+                    stockSolution = producer.poll(100, TimeUnit.MILLISECONDS);
+                    if (stockSolution == null) {
+                        if (producer.isExhausted()) {
+                            logger.info("Task[{}] No more possible stock solutions", cfg.getTaskId());
+                            break;
+                        }
+                        continue;
+                    }
+
+                    logger.debug("Task[{}] Candidate stock {} usedArea[{}]", cfg.getTaskId(), stockSolution, (float)((double)requiredArea / (double)stockSolution.getArea()));
+                    permutationIndex = 0;
+                    nbrStockSolutions++;
+                }
+
+                // Wait until there's free capacity in the pool, permutations are submitted one at a time
+                if (task.getRunningThreads() >= context.getExecutor().getMaximumPoolSize()
+                        || !submitCutListThread(tilesPermutations.get(permutationIndex), permutationIndex, tilesPermutations.size(), stockSolution, requiredArea, context)) {
+                    Thread.sleep(50);
+                    continue;
+                }
+
+                if (++permutationIndex >= tilesPermutations.size()) {
+                    stockSolution = null;
+                    isSubmitted = true;
+                }
+            }
+
+            // Wait for the already started threads
+            while (task.getRunningThreads() > 0 && !context.isCancelled()) {
+                Thread.sleep(100);
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Task[{}] Interrupted", cfg.getTaskId());
+        } finally {
+            producer.stop();
+        }
+    }
+}
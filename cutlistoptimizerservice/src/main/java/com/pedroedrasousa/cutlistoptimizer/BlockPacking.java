@@ -0,0 +1,253 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.*;
+
+import java.util.*;
+
+/**
+ * Packs high quantity tiles in blocks, grids of identical tiles placed as a single tile.
+ * Blocks are expanded into their individual tiles and cuts once placed, so the search needs far less steps for orders
+ * with many identical tiles.
+ * Block dimensions include the cut thickness between their tiles.
+ * Placed blocks are ranked by the number of tiles they hold, and blocks that don't fit are placed one tile at a time.
+ */
+public class BlockPacking {
+
+    /**
+     * Tiles are only packed if there's at least twice this quantity, and blocks will hold at least this many tiles.
+     */
+    private static int MIN_TILES_PER_BLOCK = 4;
+
+    private static class Block {
+
+        private final TileDimensions tile;
+
+        private final int nbrColumns;
+
+        private final int nbrRows;
+
+        private final TileDimensions blockDimensions;
+
+        private Block(TileDimensions tile, int nbrColumns, int nbrRows, TileDimensions blockDimensions) {
+            this.tile = tile;
+            this.nbrColumns = nbrColumns;
+            this.nbrRows = nbrRows;
+            this.blockDimensions = blockDimensions;
+        }
+    }
+
+    private final int cutThickness;
+
+    private final int maxWidth;
+
+    private final int maxHeight;
+
+    /**
+     * Blocks by id, ids are negative so they never collide with the ids of the tiles.
+     */
+    private final Map<Integer, Block> blocks = new HashMap<>();
+
+    private final Map<String, Block> blocksByKey = new HashMap<>();
+
+    private int nextId = -2;
+
+    /**
+     * @param stockTiles Blocks are never bigger than the biggest stock panel.
+     */
+    public BlockPacking(List<QuantifiedTileDimensions> stockTiles, int cutThickness) {
+        this.cutThickness = cutThickness;
+
+        TileDimensions biggestPanel = null;
+        for (QuantifiedTileDimensions quantifiedTileDimensions : stockTiles) {
+            if (biggestPanel == null || quantifiedTileDimensions.getTileDimensions().getArea() > biggestPanel.getArea()) {
+                biggestPanel = quantifiedTileDimensions.getTileDimensions();
+            }
+        }
+        this.maxWidth = biggestPanel != null ? biggestPanel.getWidth() : 0;
+        this.maxHeight = biggestPanel != null ? biggestPanel.getHeight() : 0;
+    }
+
+    /**
+     * Replaces each run of the specified permutation by as many blocks as its quantity allows, followed by the
+     * remaining tiles.
+     *
+     * @return A new permutation, the provided one is not modified.
+     */
+    public synchronized List<QuantifiedTileDimensions> pack(List<QuantifiedTileDimensions> permutation) {
+
+        List<QuantifiedTileDimensions> packed = new ArrayList<>();
+
+        for (QuantifiedTileDimensions quantifiedTileDimensions : permutation) {
+            Block block = getBlock(quantifiedTileDimensions.getTileDimensions(), quantifiedTileDimensions.getQuantity());
+            if (block == null) {
+                packed.add(quantifiedTileDimensions);
+                continue;
+            }
+
+            int nbrTilesPerBlock = block.nbrColumns * block.nbrRows;
+            int nbrBlocks = quantifiedTileDimensions.getQuantity() / nbrTilesPerBlock;
+            int nbrRemaining = quantifiedTileDimensions.getQuantity() - nbrBlocks * nbrTilesPerBlock;
+
+            packed.add(new QuantifiedTileDimensions(block.blockDimensions, nbrBlocks));
+            if (nbrRemaining > 0) {
+                packed.add(new QuantifiedTileDimensions(quantifiedTileDimensions.getTileDimensions(), nbrRemaining));
+            }
+        }
+
+        return packed;
+    }
+
+    /**
+     * Near square grid of about the square root of the quantity tiles, fitting the biggest stock panel.
+     *
+     * @return The block for packing the specified quantity of tiles, null if not worth packing them.
+     */
+    private Block getBlock(TileDimensions tile, int quantity) {
+
+        if (quantity < 2 * MIN_TILES_PER_BLOCK) {
+            return null;
+        }
+
+        int maxNbrColumns = (maxWidth + cutThickness) / (tile.getWidth() + cutThickness);
+        int maxNbrRows = (maxHeight + cutThickness) / (tile.getHeight() + cutThickness);
+
+        int nbrTilesPerBlock = Math.max(MIN_TILES_PER_BLOCK, (int) Math.sqrt(quantity));
+        int nbrColumns = Math.min(maxNbrColumns, Math.max(1, (int) Math.round(Math.sqrt(nbrTilesPerBlock))));
+        int nbrRows = nbrColumns > 0 ? Math.min(maxNbrRows, Math.max(1, nbrTilesPerBlock / nbrColumns)) : 0;
+
+        if (nbrColumns * nbrRows < 2) {
+            return null;
+        }
+
+        String key = tile.getId() + ":" + tile.getWidth() + "x" + tile.getHeight() + ":" + nbrColumns + "x" + nbrRows;
+        Block block = blocksByKey.get(key);
+        if (block == null) {
+            int width = nbrColumns * tile.getWidth() + (nbrColumns - 1) * cutThickness;
+            int height = nbrRows * tile.getHeight() + (nbrRows - 1) * cutThickness;
+            block = new Block(new TileDimensions(tile), nbrColumns, nbrRows, new TileDimensions(nextId--, width, height));
+            blocksByKey.put(key, block);
+            blocks.put(block.blockDimensions.getId(), block);
+        }
+        return block;
+    }
+
+    private synchronized Block getBlock(int id) {
+        return id < -1 ? blocks.get(id) : null;
+    }
+
+    /**
+     * @return Number of tiles held by the block with the specified id, 1 if it's not a block.
+     */
+    public int getNbrTiles(int id) {
+        Block block = getBlock(id);
+        return block != null ? block.nbrColumns * block.nbrRows : 1;
+    }
+
+    /**
+     * @return Tile the block with the specified id is made of, null if it's not a block.
+     */
+    public TileDimensions getBlockTile(int id) {
+        Block block = getBlock(id);
+        return block != null ? block.tile : null;
+    }
+
+    /**
+     * Expands the placed and non fitted blocks of the specified solutions into their tiles.
+     * Mosaics holding blocks are copied, so tile nodes shared with other solutions are not modified.
+     *
+     * @return The expanded solutions, in the same order.
+     */
+    public List<Solution> expand(List<Solution> solutions) {
+        List<Solution> expandedSolutions = new ArrayList<>(solutions.size());
+        for (Solution solution : solutions) {
+            expandedSolutions.add(expand(solution));
+        }
+        return expandedSolutions;
+    }
+
+    private Solution expand(Solution solution) {
+
+        Solution expanded = new Solution(solution);
+
+        for (Mosaic mosaic : solution.getMosaics()) {
+            if (!hasBlocks(mosaic.getRootTileNode())) {
+                continue;
+            }
+
+            Mosaic copy = mosaic.copyWithNewIds();
+            List<Cut> cuts = new ArrayList<>();
+            for (TileNode tileNode : copy.getRootTileNode().getFinalTiles()) {
+                Block block = getBlock(tileNode.getExternalId());
+                if (block != null) {
+                    expand(tileNode, block, cuts);
+                }
+            }
+            copy.addCuts(cuts);
+
+            expanded.removeMosaic(mosaic);
+            expanded.addMosaic(copy);
+        }
+
+        List<TileDimensions> noFitTiles = new ArrayList<>();
+        for (TileDimensions tileDimensions : expanded.getNoFitTiles()) {
+            Block block = getBlock(tileDimensions.getId());
+            if (block == null) {
+                noFitTiles.add(tileDimensions);
+                continue;
+            }
+            for (int i = 0; i < block.nbrColumns * block.nbrRows; i++) {
+                noFitTiles.add(block.tile);
+            }
+        }
+        expanded.setNoFitTiles(noFitTiles);
+
+        // Every block was replaced by its tiles
+        expanded.setNbrPackedTiles(0);
+
+        return expanded;
+    }
+
+    private boolean hasBlocks(TileNode tileNode) {
+        if (tileNode.isFinal() && getBlock(tileNode.getExternalId()) != null) {
+            return true;
+        }
+        return (tileNode.getChild1() != null && hasBlocks(tileNode.getChild1()))
+                || (tileNode.getChild2() != null && hasBlocks(tileNode.getChild2()));
+    }
+
+    /**
+     * Splits the node of a placed block into a grid of final tiles, one column at a time.
+     * A block may have been placed rotated.
+     */
+    private void expand(TileNode tileNode, Block block, List<Cut> cuts) {
+
+        boolean isRotated = tileNode.getWidth() != block.blockDimensions.getWidth() || tileNode.getHeight() != block.blockDimensions.getHeight();
+        TileDimensions tile = isRotated ? block.tile.rotate90() : block.tile;
+        int nbrColumns = isRotated ? block.nbrRows : block.nbrColumns;
+        int nbrRows = isRotated ? block.nbrColumns : block.nbrRows;
+
+        tileNode.setFinal(false);
+        tileNode.setExternalId(-1);
+
+        TileNode remaining = tileNode;
+        for (int column = 0; column < nbrColumns; column++) {
+            TileNode columnNode = remaining;
+            if (column < nbrColumns - 1) {
+                cuts.add(CutListThread.splitHorizontally(remaining, tile.getWidth(), cutThickness, tile.getId()));
+                columnNode = remaining.getChild1();
+                remaining = remaining.getChild2();
+            }
+
+            for (int row = 0; row < nbrRows; row++) {
+                TileNode tileToSet = columnNode;
+                if (row < nbrRows - 1) {
+                    cuts.add(CutListThread.splitVertically(columnNode, tile.getHeight(), cutThickness, tile.getId()));
+                    tileToSet = columnNode.getChild1();
+                    columnNode = columnNode.getChild2();
+                }
+                tileToSet.setFinal(true);
+                tileToSet.setExternalId(tile.getId());
+            }
+        }
+    }
+}
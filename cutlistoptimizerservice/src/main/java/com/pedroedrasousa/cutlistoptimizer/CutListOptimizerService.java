@@ -1,6 +1,6 @@
 package com.pedroedrasousa.cutlistoptimizer;
 
-import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
+import com.pedroedrasousa.cutlistoptimizer.model.QuantifiedTileDimensions;
 import com.pedroedrasousa.cutlistoptimizer.model.Configuration;
 
 import java.util.List;
@@ -8,7 +8,7 @@ import java.util.List;
 
 public interface CutListOptimizerService {
 
-    String submitTask(List<TileDimensions> tilesToFit, List<TileDimensions> stockTiles, Configuration cfg);
+    String submitTask(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, Configuration cfg);
 
     RunningTasks.Task getTaskStatus(String taskId);
 
@@ -1,37 +1,97 @@
 package com.pedroedrasousa.cutlistoptimizer;
 
 import com.pedroedrasousa.cutlistoptimizer.model.*;
-import com.pedroedrasousa.cutlistoptimizer.comparator.SolutionComparatorFactory;
-import com.pedroedrasousa.cutlistoptimizer.comparator.SolutionMostNbrTilesComparator;
+import com.pedroedrasousa.cutlistoptimizer.schedule.BeamWidthSchedule;
+import com.pedroedrasousa.cutlistoptimizer.schedule.ConstantBeamWidthSchedule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.*;
 
 public class CutListThread implements Runnable {
 
     private final static Logger logger = LoggerFactory.getLogger(CutListThread.class);
 
-    private RunningTasks runningTasks;
+    /**
+     * Estimated memory taken by a solution, besides its placed tiles, in bytes.
+     * Sizes assume a 64 bit VM with compressed references, 12 byte headers and objects aligned to 8 bytes:
+     * Solution 64, its mosaic list 24 and array of 10 56, the replaced Mosaic 32, its own non fitted tile list and
+     * array 80.
+     */
+    private static final long SOLUTION_BYTES = 256;
+
+    /**
+     * Estimated memory added to a solution by each placed tile, in bytes. Placing a tile splits a leaf with up to two
+     * cuts: four new TileNode 72 each with their Tile 32, two Cut 72 each with their chain link 24.
+     * Ancestors of the split leaf are copied, they replace nodes already counted. Solutions are counted as if they
+     * didn't share nodes, so the estimate is an upper bound.
+     */
+    private static final long PLACED_TILE_BYTES = 608;
 
-    public RunningTasks getRunningTasks() {
-        return runningTasks;
+    /**
+     * Number of subtrees the interning table may hold before it's cleared, up to 72 bytes each.
+     */
+    private static final int MAX_INTERNED_NODES = 32768;
+
+    private SolverContext context;
+
+    public SolverContext getContext() {
+        return context;
     }
 
-    public void setRunningTasks(RunningTasks runningTasks) {
-        this.runningTasks = runningTasks;
+    public void setContext(SolverContext context) {
+        this.context = context;
     }
 
     private Integer permutationId;
 
-    private List<TileDimensions> tiles;
+    /**
+     * Tiles to be fitted in placement order, each entry is placed as many times as its quantity.
+     */
+    private List<QuantifiedTileDimensions> tiles;
     private List<Solution> solutions;
     private Configuration cfg;
     private int accuracyFactor;
-    private List<Solution> allSolutions;
 
     private StockSolution stockSolution;
 
+    /**
+     * Solution to start from instead of the empty stock panels, if any.
+     */
+    private Solution initialSolution;
+
+    /**
+     * Blocks the tiles may hold, expanded once every tile is placed. Null if tiles are not packed in blocks.
+     */
+    private BlockPacking blockPacking;
+
+    /**
+     * Number of solutions kept after placing each tile, around the accuracy factor.
+     */
+    private BeamWidthSchedule beamWidthSchedule = new ConstantBeamWidthSchedule();
+
+    private PanelPatternCache panelPatternCache = PanelPatternCache.getInstance();
+
+    /**
+     * Estimated memory of the kept solutions this thread accounted for in the task.
+     */
+    private long estimatedMemory;
+
+    // Scratch buffers reused across tiles and solutions, a thread instance is only run by one pool thread at a time
+    private final List<TileNode> candidates = new ArrayList<>();
+    private final List<Mosaic> newMosaics = new ArrayList<>();
+    private final List<Solution> newSolutions = new ArrayList<>();
+    private final Set<String> identifiers = new HashSet<>();
+    private final StringBuilder identifier = new StringBuilder();
+    private final TileNodeInterner interner = new TileNodeInterner();
+    private Comparator<Solution> solutionComparator;
+
+    // Smallest dimensions of the tiles still to be placed, unused leaves smaller than these are dead
+    private int minRemainingWidth;
+    private int minRemainingHeight;
+
     public Integer getPermutationId() {
         return permutationId;
     }
@@ -40,11 +100,11 @@ public class CutListThread implements Runnable {
         this.permutationId = permutationId;
     }
 
-    public List<TileDimensions> getTiles() {
+    public List<QuantifiedTileDimensions> getTiles() {
         return tiles;
     }
 
-    public void setTiles(List<TileDimensions> tiles) {
+    public void setTiles(List<QuantifiedTileDimensions> tiles) {
         this.tiles = tiles;
     }
 
@@ -72,14 +132,6 @@ public class CutListThread implements Runnable {
         this.accuracyFactor = accuracyFactor;
     }
 
-    public List<Solution> getAllSolutions() {
-        return allSolutions;
-    }
-
-    public void setAllSolutions(List<Solution> allSolutions) {
-        this.allSolutions = allSolutions;
-    }
-
     public StockSolution getStockSolution() {
         return stockSolution;
     }
@@ -88,12 +140,39 @@ public class CutListThread implements Runnable {
         this.stockSolution = stockSolution;
     }
 
+    public Solution getInitialSolution() {
+        return initialSolution;
+    }
+
+    public void setInitialSolution(Solution initialSolution) {
+        this.initialSolution = initialSolution;
+    }
+
+    public BlockPacking getBlockPacking() {
+        return blockPacking;
+    }
+
+    public void setBlockPacking(BlockPacking blockPacking) {
+        this.blockPacking = blockPacking;
+    }
+
+    public BeamWidthSchedule getBeamWidthSchedule() {
+        return beamWidthSchedule;
+    }
+
+    public void setBeamWidthSchedule(BeamWidthSchedule beamWidthSchedule) {
+        this.beamWidthSchedule = beamWidthSchedule;
+    }
+
     @Override
     public void run() {
         try {
             computeSolutions();
         } catch (Exception ex) {
             ex.printStackTrace();
+        } finally {
+            context.addEstimatedMemory(-estimatedMemory);
+            context.getTask().decrementRunningThreads();
         }
     }
 
@@ -104,196 +183,440 @@ public class CutListThread implements Runnable {
      */
     public int removeDuplicated(List<Solution> solutions) {
         int count = 0;
-        List<Solution> solutionsToRemove = new ArrayList<>();
 
-        Set<String> set = new HashSet<>();
-        for (Solution solution : solutions) {
-            String str = "";
+        // The table is kept across steps, subtrees shared with solutions of earlier steps are already interned.
+        // Once it grows past its bound most of it belongs to discarded solutions, it's then cleared between steps.
+        if (interner.size() > MAX_INTERNED_NODES) {
+            interner.clear();
+        }
+        identifiers.clear();
+        for (Iterator<Solution> iterator = solutions.iterator(); iterator.hasNext(); ) {
+            Solution solution = iterator.next();
 
+            identifier.setLength(0);
             for (Mosaic mosaic : solution.getMosaics()) {
-                str = str + mosaic.getRootTileNode().toStringIdentifier();
+                identifier.append(interner.intern(mosaic.getRootTileNode())).append(',');
             }
 
-            if (set.add(str) == false) {
-                solutionsToRemove.add(solution);
+            if (identifiers.add(identifier.toString()) == false) {
+                iterator.remove();
                 count++;
             }
         }
 
-        solutions.removeAll(solutionsToRemove);
         return count;
     }
 
 
-    private void sort(List<Solution> solutions, Configuration cfg) {
-
-        final List<Comparator> solutionComparators = new ArrayList<>();
-
-        List<String> criterias = new ArrayList<>(cfg.getPriorities());
-
-        // Solutions without all fitted tiles will go last
-        solutionComparators.add(new SolutionMostNbrTilesComparator());
-
-        for (String priotity : criterias) {
-            Comparator comparator = SolutionComparatorFactory.getSolutionComparator(priotity);
-
-            if (comparator != null) {
-                solutionComparators.add(comparator);
-            }
-        }
-
-        Collections.sort(solutions, new Comparator<Solution>() {
-            @Override
-            public int compare(Solution o1, Solution o2) {
-
-                int diff = 0;
-
-                for (Comparator<Solution> solutionComparator : solutionComparators) {
-                    diff = solutionComparator.compare(o1, o2);
-                    if (diff != 0) {
-                        break;
-                    }
-                }
+    void computeSolutions() {
 
-                return diff;
-            }
-        });
-    }
+        RunningTasks.Task task = context.getTask();
 
-    void computeSolutions() {
+        solutionComparator = Incumbent.getComparator(cfg);
 
         //logger.debug("Thread start");
 
         // Calculate permutation priority based on the number of dimensions change while iterating the tile list
         int permutationPriority = Integer.MAX_VALUE;
         String lastTileDimensions = "";
-        for (TileDimensions tile : tiles) {
+        int nbrTiles = 0;
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tiles) {
+            TileDimensions tile = quantifiedTileDimensions.getTileDimensions();
             if (!tile.dimensionsToString().equals(lastTileDimensions)) {
                 permutationPriority--;
                 lastTileDimensions = tile.dimensionsToString();
             }
+            nbrTiles += quantifiedTileDimensions.getQuantity();
         }
 
         // Clone the candidate stock solutions
         List<Solution> solutions = new ArrayList<>();
-        Solution stockSolutionClone = new Solution(stockSolution);
+        Solution stockSolutionClone = initialSolution != null ? new Solution(initialSolution) : new Solution(stockSolution);
         stockSolutionClone.setPermutationPriority(permutationPriority);
         solutions.add(stockSolutionClone);
 
 
-        RunningTasks.Task task = runningTasks.getTask(cfg.getTaskId());
-        if (task == null) {
-            // No task, do nothing.
+        if (context.isCancelled()) {
+            // Task was stopped, do nothing.
             return;
         }
 
         int nbrTilesProcessed = 0;
         int percentageDone = 0;
 
-        // Loop through all the titles to be fitted
-        for (TileDimensions tile : tiles) {
+        // Multiset of the tiles still to be fitted, for looking up cached panel layouts
+        SortedMap<String, Integer> remainingTiles = new TreeMap<>();
+        long remainingArea = 0;
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tiles) {
+            TileDimensions tile = quantifiedTileDimensions.getTileDimensions();
+            String tileKey = PanelPatternCache.getTileKey(tile.getWidth(), tile.getHeight(), cfg.getAllowTileRotation());
+            Integer count = remainingTiles.get(tileKey);
+            remainingTiles.put(tileKey, (count != null ? count : 0) + quantifiedTileDimensions.getQuantity());
+            remainingArea += tile.getArea() * quantifiedTileDimensions.getQuantity();
+        }
+        long totalArea = remainingArea;
+
+        // Smallest dimensions of the tiles following each entry, short and long sides if tiles can be rotated
+        int[] minWidths = new int[tiles.size() + 1];
+        int[] minHeights = new int[tiles.size() + 1];
+        minWidths[tiles.size()] = Integer.MAX_VALUE;
+        minHeights[tiles.size()] = Integer.MAX_VALUE;
+        for (int i = tiles.size() - 1; i >= 0; i--) {
+            TileDimensions tile = tiles.get(i).getTileDimensions();
+            minWidths[i] = Math.min(getDeadWidth(tile), minWidths[i + 1]);
+            minHeights[i] = Math.min(getDeadHeight(tile), minHeights[i + 1]);
+        }
+
+        long biggestPanelArea = 0;
+        for (TileDimensions panel : stockSolution.getStockTileDimensions()) {
+            biggestPanelArea = Math.max(panel.getArea(), biggestPanelArea);
+        }
+
+        // Solutions completed at once with a cached panel layout
+        List<Solution> cachedPatternSolutions = new ArrayList<>();
+
+        // Placement may be interrupted when the task is stopped or its budget is exhausted
+        boolean isInterrupted = false;
+
+        long nbrExpansions = 0;
+        long initialAllocatedBytes = getAllocatedBytes();
+
+        // Loop through all the titles to be fitted, expanding each entry into its quantity
+        int entryIdx = -1;
+        placement:
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tiles) {
+            TileDimensions tile = quantifiedTileDimensions.getTileDimensions();
+            entryIdx++;
+            for (int tileIdx = 0; tileIdx < quantifiedTileDimensions.getQuantity(); tileIdx++) {
+
+                // Tiles still to be placed after this one
+                minRemainingWidth = minWidths[entryIdx + 1];
+                minRemainingHeight = minHeights[entryIdx + 1];
+                if (tileIdx < quantifiedTileDimensions.getQuantity() - 1) {
+                    minRemainingWidth = Math.min(getDeadWidth(tile), minRemainingWidth);
+                    minRemainingHeight = Math.min(getDeadHeight(tile), minRemainingHeight);
+                }
 
-            // Calculate percentage done based on the number of tiles
-            nbrTilesProcessed++;
-            if (nbrTilesProcessed % 10 == 0) {
-                percentageDone = (int) (((float) nbrTilesProcessed / (float) tiles.size()) * 100);
+                // Calculate percentage done based on the number of tiles
+                nbrTilesProcessed++;
+                if (nbrTilesProcessed % 10 == 0) {
+                    percentageDone = (int) (((float) nbrTilesProcessed / (float) nbrTiles) * 100);
 
-                //task.getIterationsProgress().put(permutationId, percentageDone);
+                    //task.getIterationsProgress().put(permutationId, percentageDone);
 
-                if (task.getSolution() == null) {
-                    if (task.getPercentageDone() < percentageDone) {
-                        task.setPercentageDone(percentageDone);
-                        task.setStatusMessage("Computing initial solution: " + percentageDone + "%");
+                    if (task.getSolution() == null) {
+                        if (task.getPercentageDone() < percentageDone) {
+                            task.setPercentageDone(percentageDone);
+                            task.setStatusMessage("Computing initial solution: " + percentageDone + "%");
+                        }
+                    } else {
+                        task.setStatusMessage("Searching for best solution...\nIteration " + permutationId + " - " + percentageDone + "%");
                     }
-                } else {
-                    task.setStatusMessage("Searching for best solution...\nIteration " + permutationId + " - " + percentageDone + "%");
+
                 }
 
-            }
 
 
+                // Remaining tiles may match a cached layout as soon as they fit in a single panel
+                if (remainingArea <= biggestPanelArea) {
+                    addCachedPatternSolutions(solutions, remainingTiles, remainingArea, nbrTilesProcessed - 1, cachedPatternSolutions);
+                }
 
-            List<Solution> newSolutions = new ArrayList<>();
-            boolean fitted = false;
+                String tileKey = PanelPatternCache.getTileKey(tile.getWidth(), tile.getHeight(), cfg.getAllowTileRotation());
+                remainingTiles.put(tileKey, remainingTiles.get(tileKey) - 1);
+                if (remainingTiles.get(tileKey) == 0) {
+                    remainingTiles.remove(tileKey);
+                }
+                remainingArea -= tile.getArea();
 
-            HashMap<String, Integer> depths = new HashMap<>();
+                newSolutions.clear();
+                boolean fitted = false;
 
-            // Loop through all solutions to fit the tiles
-            for (Iterator<Solution> iterator = solutions.iterator(); iterator.hasNext(); ) {
-                Solution solution = iterator.next();
+                // Blocks count as the number of tiles they hold when ranking
+                int nbrPackedTiles = blockPacking != null ? blockPacking.getNbrTiles(tile.getId()) - 1 : 0;
 
-                for (Mosaic mosaic : solution.getMosaics()) {
+                // Loop through all solutions to fit the tiles
+                for (Iterator<Solution> iterator = solutions.iterator(); iterator.hasNext(); ) {
+                    Solution solution = iterator.next();
 
-                    List<Mosaic> newMosaics = new ArrayList<>();
-                    add(tile, mosaic, newMosaics, cfg.getCutThickness(), cfg.getAllowTileRotation());
+                    for (Mosaic mosaic : solution.getMosaics()) {
 
-                    for (Mosaic newMosaic : newMosaics) {
-                        Solution newSolution = new Solution(solution, mosaic);  // Copy the solution but exclude the mosaic that will be replaced by the new possibility
-                        newSolution.addMosaic(newMosaic);                       // Add the new possibility
-                        newSolutions.add(newSolution);                          // Add this new solution to list
+                        newMosaics.clear();
+                        add(tile, mosaic, newMosaics, cfg.getCutThickness(), cfg.getAllowTileRotation());
+
+                        for (Mosaic newMosaic : newMosaics) {
+                            Solution newSolution = new Solution(solution, mosaic);  // Copy the solution but exclude the mosaic that will be replaced by the new possibility
+                            newSolution.addMosaic(newMosaic);                       // Add the new possibility
+                            newSolution.addPackedTiles(nbrPackedTiles);
+                            newSolutions.add(newSolution);                          // Add this new solution to list
+                        }
+
+                        if (newMosaics.size() > 0) {
+                            fitted = true;
+                            break;
+                        }
                     }
 
-                    if (newMosaics.size() > 0) {
-                        fitted = true;
-                        break;
+                    if (fitted == true) {
+                        iterator.remove();
+                    } else if (nbrPackedTiles > 0) {
+                        fitBlockTiles(solution, blockPacking.getBlockTile(tile.getId()), nbrPackedTiles + 1);
+                    } else {
+                        solution.addNoFitTile(tile);
                     }
                 }
 
-                if (fitted == true) {
-                    iterator.remove();
-                } else {
-                    solution.getNoFitTiles().add(tile);
+                solutions.addAll(newSolutions);
+                nbrExpansions += newSolutions.size();
+
+                // Solutions missing a tile always rank below an incumbent fitting every tile, no point keeping them
+                if (context.getIncumbent().isSolved()) {
+                    for (Iterator<Solution> iterator = solutions.iterator(); iterator.hasNext(); ) {
+                        if (iterator.next().getNoFitTiles().size() > 0) {
+                            iterator.remove();
+                        }
+                    }
+                    if (solutions.isEmpty()) {
+                        return;
+                    }
                 }
+
+                removeDuplicated(solutions);
+
+                int beamWidth = beamWidthSchedule.getBeamWidth(accuracyFactor, nbrTilesProcessed - 1, nbrTiles, remainingArea, totalArea);
+
+                // Task is taking more memory than allowed, keep only this thread's share of the budget
+                long solutionSize = SOLUTION_BYTES + nbrTilesProcessed * PLACED_TILE_BYTES;
+                if (context.isOverMemoryBudget()) {
+                    long share = context.getMemoryBudget() / Math.max(1, task.getRunningThreads());
+                    beamWidth = (int) Math.max(1, Math.min(beamWidth, share / solutionSize));
+                }
+
+                Collections.sort(solutions, solutionComparator);
+                solutions.subList(Math.min(solutions.size() - 1, beamWidth/*(int) (accuracyFactor * 500.0f)*/), solutions.size() - 1).clear();
+
+                context.addEstimatedMemory(solutions.size() * solutionSize - estimatedMemory);
+                estimatedMemory = solutions.size() * solutionSize;
+
+                if (context.isCancelled()) {
+                    isInterrupted = true;
+                    break placement;
+                }
+                //task.setSolution((new TilingResponseDTOBuilder()).setSolutions(solutions.get(0)).setInfo(null).build());
             }
+        }
 
-            solutions.addAll(newSolutions);
+        long allocatedBytes = getAllocatedBytes();
+        context.addExpansions(nbrExpansions, initialAllocatedBytes >= 0 && allocatedBytes >= 0 ? allocatedBytes - initialAllocatedBytes : 0);
 
-            removeDuplicated(solutions);
+        // Only the best partial solution is offered, with the tiles that weren't processed as not fitted.
+        // It ranks below any solution fitting every tile, but may be the best one found when the budget runs out.
+        if (isInterrupted) {
+            solutions.subList(1, solutions.size()).clear();
+            addUnprocessedTiles(solutions.get(0), nbrTilesProcessed);
+        }
 
-            List<Solution> solutionsToRemove = new ArrayList<>();
-            sort(solutions, cfg);
-            solutionsToRemove.addAll(solutions.subList(Math.min(solutions.size() - 1, accuracyFactor/*(int) (accuracyFactor * 500.0f)*/), solutions.size() - 1));
+        if (!cachedPatternSolutions.isEmpty()) {
+            solutions.addAll(cachedPatternSolutions);
+            Incumbent.sort(solutions, cfg);
+        }
+
+        if (blockPacking != null) {
+            solutions = blockPacking.expand(solutions);
+            Incumbent.sort(solutions, cfg);
+        }
+
+        // Final solutions may be kept long after the search, panels cut the same way are stored once
+        for (Solution solution : solutions) {
+            solution.shareIdenticalMosaics();
+        }
+
+        // Make the panels of the best solution available to other threads and tasks
+        if (!context.isCancelled()) {
+            for (Mosaic mosaic : solutions.get(0).getMosaics()) {
+                if (mosaic.getUsedArea() > 0) {
+                    panelPatternCache.put(mosaic, cfg.getCutThickness(), cfg.getAllowTileRotation());
+                }
+            }
+        }
+
+        context.getIncumbent().offer(solutions, accuracyFactor);
+    }
+
+    /**
+     * Adds the tiles following the specified number of processed ones to the solution's non fitted tiles.
+     */
+    private void addUnprocessedTiles(Solution solution, int nbrTilesProcessed) {
+        int tileIdx = 0;
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tiles) {
+            for (int i = 0; i < quantifiedTileDimensions.getQuantity(); i++, tileIdx++) {
+                if (tileIdx >= nbrTilesProcessed) {
+                    solution.addNoFitTile(quantifiedTileDimensions.getTileDimensions());
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes solutions having an empty panel for which a layout holding every remaining tile is cached.
+     * Only the best ranked solution is completed for each panel dimensions.
+     *
+     * @param nbrTilesPlaced Number of tiles already processed, remaining ones are the following.
+     * @param completedSolutions List to append the completed solutions.
+     */
+    private void addCachedPatternSolutions(List<Solution> solutions, SortedMap<String, Integer> remainingTiles, long remainingArea, int nbrTilesPlaced, List<Solution> completedSolutions) {
 
-            solutions.removeAll(solutionsToRemove);
+        Set<String> lookedUpPanels = new HashSet<>();
+        List<TileDimensions> tilesToAssign = null;
 
-            if (runningTasks.getTask(cfg.getTaskId()) == null) {
-                break;
+        for (Solution solution : solutions) {
+            for (Mosaic mosaic : solution.getMosaics()) {
+                TileNode root = mosaic.getRootTileNode();
+                if (root.hasChildren() || root.isFinal() || root.getArea() < remainingArea) {
+                    continue;
+                }
+                if (!lookedUpPanels.add(root.getWidth() + "x" + root.getHeight())) {
+                    continue;
+                }
+
+                if (tilesToAssign == null) {
+                    tilesToAssign = getRemainingTiles(nbrTilesPlaced);
+                }
+
+                Mosaic cachedMosaic = panelPatternCache.get(root.toTileDimensions(), cfg.getCutThickness(), cfg.getAllowTileRotation(), remainingTiles, tilesToAssign);
+                if (cachedMosaic != null) {
+                    Solution completedSolution = new Solution(solution, mosaic);
+                    completedSolution.addMosaic(cachedMosaic);
+                    completedSolutions.add(completedSolution);
+                }
             }
-            //task.setSolution((new TilingResponseDTOBuilder()).setSolutions(solutions.get(0)).setInfo(null).build());
         }
+    }
 
-        synchronized (allSolutions) {
-            allSolutions.addAll(solutions);
-            sort(allSolutions, cfg);
-            ArrayList<Solution> solutionsToRemove = new ArrayList<>();
-            solutionsToRemove.addAll(allSolutions.subList(Math.min(allSolutions.size() - 1, accuracyFactor/*(int) (accuracyFactor * 500.0f)*/), allSolutions.size() - 1));
-            allSolutions.removeAll(solutionsToRemove);
+    /**
+     * Expands the tiles that follow the specified number of already processed tiles.
+     */
+    private List<TileDimensions> getRemainingTiles(int nbrTilesPlaced) {
+        List<TileDimensions> remainingTiles = new ArrayList<>();
+        int nbrToSkip = nbrTilesPlaced;
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tiles) {
+            int nbrSkipped = Math.min(nbrToSkip, quantifiedTileDimensions.getQuantity());
+            nbrToSkip -= nbrSkipped;
+            for (int i = nbrSkipped; i < quantifiedTileDimensions.getQuantity(); i++) {
+                remainingTiles.add(quantifiedTileDimensions.getTileDimensions());
+            }
         }
+        return remainingTiles;
+    }
 
-        if (solutions.get(0).getNoFitTiles().size() == 0) {
-            // TODO: To break or not to break - if not try all permutations and then choose best
-            //break;
+    /**
+     * @return Bytes allocated so far by the current thread, -1 if the JVM doesn't measure it.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
         }
+        return -1;
+    }
+
+    /**
+     * Places the tiles of a block that didn't fit one at a time, each where it leaves the biggest free area.
+     * Tiles that don't fit either are added to the solution no fit tiles.
+     */
+    private void fitBlockTiles(Solution solution, TileDimensions tile, int nbrTiles) {
 
-        //RunningTasks.Task task = runningTasks.getTask(cfg.getTaskId());
-        if (task != null) {
+        // Other tiles of the block are still to be placed, leaves able to hold them must be kept alive
+        int savedMinRemainingWidth = minRemainingWidth;
+        int savedMinRemainingHeight = minRemainingHeight;
+        minRemainingWidth = Math.min(getDeadWidth(tile), minRemainingWidth);
+        minRemainingHeight = Math.min(getDeadHeight(tile), minRemainingHeight);
 
-            // Remove unused panels from the final solution
-            Iterator<Mosaic> iterator = allSolutions.get(0).getMosaics().iterator();
-            while (iterator.hasNext()) {
-                Mosaic mosaic = iterator.next();
-                if (mosaic.getUsedArea() == 0) {
-                    iterator.remove();
+        for (int i = 0; i < nbrTiles; i++) {
+            Mosaic fittedMosaic = null;
+            Mosaic bestMosaic = null;
+
+            for (Mosaic mosaic : solution.getMosaics()) {
+                newMosaics.clear();
+                add(tile, mosaic, newMosaics, cfg.getCutThickness(), cfg.getAllowTileRotation());
+                for (Mosaic newMosaic : newMosaics) {
+                    if (bestMosaic == null || newMosaic.getRootTileNode().getMaxFreeArea() > bestMosaic.getRootTileNode().getMaxFreeArea()) {
+                        bestMosaic = newMosaic;
+                    }
+                }
+                if (bestMosaic != null) {
+                    fittedMosaic = mosaic;
+                    break;
                 }
             }
 
-            task.setSolution((new TilingResponseDTOBuilder()).setSolutions(allSolutions.get(0)).setInfo(null).build());
-            task.decrementRunningThreads();
-            //task.setStatusMessage("Searching for best solution...\nIteration " + permutationId);
-        } else {
-            //logger.info("Task[{}] permutation[{}] Task was deliberately stopped", cfg.getTaskId(), permutationId);
+            if (bestMosaic != null) {
+                solution.removeMosaic(fittedMosaic);
+                solution.addMosaic(bestMosaic);
+            } else {
+                solution.addNoFitTile(tile);
+            }
+        }
+
+        minRemainingWidth = savedMinRemainingWidth;
+        minRemainingHeight = savedMinRemainingHeight;
+    }
+
+    /**
+     * Width the unused leaves must have to hold the specified tile, the shorter side if tiles can be rotated.
+     * Blocks may be placed one tile at a time, so their tiles are considered instead.
+     */
+    private int getDeadWidth(TileDimensions tile) {
+        TileDimensions blockTile = blockPacking != null ? blockPacking.getBlockTile(tile.getId()) : null;
+        if (blockTile != null) {
+            tile = blockTile;
+        }
+        return cfg.getAllowTileRotation() ? Math.min(tile.getWidth(), tile.getHeight()) : tile.getWidth();
+    }
+
+    /**
+     * Height the unused leaves must have to hold the specified tile, the longer side if tiles can be rotated.
+     * Blocks may be placed one tile at a time, so their tiles are considered instead.
+     */
+    private int getDeadHeight(TileDimensions tile) {
+        TileDimensions blockTile = blockPacking != null ? blockPacking.getBlockTile(tile.getId()) : null;
+        if (blockTile != null) {
+            tile = blockTile;
+        }
+        return cfg.getAllowTileRotation() ? Math.max(tile.getWidth(), tile.getHeight()) : tile.getHeight();
+    }
+
+    /**
+     * Marks the unused leaves resulting from splitting the specified node as dead, if none of the tiles still to be
+     * placed fits them. With rotation, leaves are compared by their shorter and longer sides.
+     * Leaves are new, not yet shared with other solutions. Older leaves are not checked again as the remaining tiles
+     * get bigger, they may be shared with other solutions and threads and marking them would require copying their
+     * path. They're only skipped by the size checks of the search.
+     */
+    private void markDeadLeaves(TileNode tileNode) {
+
+        // Nothing left to place, leaves are only wasted space
+        if (minRemainingWidth == Integer.MAX_VALUE) {
             return;
         }
+
+        if (tileNode.getChild1() == null && tileNode.getChild2() == null) {
+            if (!tileNode.isFinal()) {
+                int width = cfg.getAllowTileRotation() ? Math.min(tileNode.getWidth(), tileNode.getHeight()) : tileNode.getWidth();
+                int height = cfg.getAllowTileRotation() ? Math.max(tileNode.getWidth(), tileNode.getHeight()) : tileNode.getHeight();
+                if (width < minRemainingWidth || height < minRemainingHeight) {
+                    tileNode.markDead();
+                }
+            }
+            return;
+        }
+
+        if (tileNode.getChild1() != null) {
+            markDeadLeaves(tileNode.getChild1());
+        }
+        if (tileNode.getChild2() != null) {
+            markDeadLeaves(tileNode.getChild2());
+        }
     }
 
     /**
@@ -326,7 +649,7 @@ public class CutListThread implements Runnable {
     private void fitTile(TileDimensions tileToAdd, Mosaic mosaic, List<Mosaic> possibilities, int cutThickness) {
 
         List<Cut> newCuts;
-        List<TileNode> candidates = new ArrayList<>();
+        candidates.clear();
 
         findCandidates(tileToAdd.getWidth(), tileToAdd.getHeight(), mosaic.getRootTileNode(), candidates);
 
@@ -335,28 +658,27 @@ public class CutListThread implements Runnable {
             // No need to split, tile has the exact required dimensions.
             if (candidate.getWidth() == tileToAdd.getWidth() && candidate.getHeight() == tileToAdd.getHeight()) {
                 // TODO: Is the copy really needed?
-                TileNode possibilitiy = copy(mosaic.getRootTileNode(), candidate);
-                TileNode candidateCopy = possibilitiy.findTile(candidate);
+                TileNode possibilitiy = new TileNode(mosaic.getRootTileNode());
+                TileNode candidateCopy = copyChildren(mosaic.getRootTileNode(), possibilitiy, candidate);
 
                 candidateCopy.setExternalId(tileToAdd.getId());
                 candidateCopy.setFinal(!tileToAdd.isPlaceHolder());
 
 
-                Mosaic newMosaic = new Mosaic(possibilitiy);
-                newMosaic.getCuts().addAll(mosaic.getCuts());
+                Mosaic newMosaic = new Mosaic(possibilitiy, mosaic);
                 possibilities.add(newMosaic);
                 continue;
             }
 
             // Consider possibilities by splitting first horizontally
-            TileNode possibilitiy = copy(mosaic.getRootTileNode(), candidate);
-            TileNode candidateCopy = possibilitiy.findTile(candidate);
+            TileNode possibilitiy = new TileNode(mosaic.getRootTileNode());
+            TileNode candidateCopy = copyChildren(mosaic.getRootTileNode(), possibilitiy, candidate);
 
             newCuts = splitHV(candidateCopy, tileToAdd, cutThickness);
+            markDeadLeaves(candidateCopy);
 
-            Mosaic newMosaic = new Mosaic(possibilitiy);
-            newMosaic.getCuts().addAll(mosaic.getCuts());
-            newMosaic.getCuts().addAll(newCuts);
+            Mosaic newMosaic = new Mosaic(possibilitiy, mosaic);
+            newMosaic.addCuts(newCuts);
             possibilities.add(newMosaic);
 
             // Second split result would be the same
@@ -365,14 +687,14 @@ public class CutListThread implements Runnable {
             }
 
             // Consider now possibilities by splitting vertically
-            TileNode possibilitiy2 = copy(mosaic.getRootTileNode(), candidate);
-            TileNode candidateCopy2 = possibilitiy2.findTile(candidate);
+            TileNode possibilitiy2 = new TileNode(mosaic.getRootTileNode());
+            TileNode candidateCopy2 = copyChildren(mosaic.getRootTileNode(), possibilitiy2, candidate);
 
             newCuts = splitVH(candidateCopy2, tileToAdd, cutThickness);
+            markDeadLeaves(candidateCopy2);
 
-            Mosaic newMosaic2 = new Mosaic(possibilitiy2);
-            newMosaic2.getCuts().addAll(mosaic.getCuts());
-            newMosaic2.getCuts().addAll(newCuts);
+            Mosaic newMosaic2 = new Mosaic(possibilitiy2, mosaic);
+            newMosaic2.addCuts(newCuts);
             possibilities.add(newMosaic2);
         }
     }
@@ -384,7 +706,7 @@ public class CutListThread implements Runnable {
      *
      * @param tileNode The tile node to be splitted.
      */
-    private static List<Cut> splitHV(TileNode tileNode, TileDimensions tileDimensions, int cutThickness) {
+    static List<Cut> splitHV(TileNode tileNode, TileDimensions tileDimensions, int cutThickness) {
 
         List<Cut> cuts = new ArrayList<>();
 
@@ -419,7 +741,7 @@ public class CutListThread implements Runnable {
      *
      * @param tileNode The tile node to be splitted.
      */
-    private static List<Cut> splitVH(TileNode tileNode, TileDimensions tileDimensions, int cutThickness) {
+    static List<Cut> splitVH(TileNode tileNode, TileDimensions tileDimensions, int cutThickness) {
 
         List<Cut> cuts = new ArrayList<>();
 
@@ -467,7 +789,7 @@ public class CutListThread implements Runnable {
      * @param tileNode Tile node to split.
      * @param w Desired width for the 1st child.
      */
-    private static Cut splitHorizontally(TileNode tileNode, int w, int cutThickness, int id) {
+    static Cut splitHorizontally(TileNode tileNode, int w, int cutThickness, int id) {
 
         if (tileNode == null) {
             return null;
@@ -530,7 +852,7 @@ public class CutListThread implements Runnable {
      * @param tileNode Tile node to split.
      * @param h Desired height for the 1st child.
      */
-    private static Cut splitVertically(TileNode tileNode, int h, int cutThickness, int id) {
+    static Cut splitVertically(TileNode tileNode, int h, int cutThickness, int id) {
 
         if (tileNode == null) {
             return null;
@@ -592,9 +914,9 @@ public class CutListThread implements Runnable {
             return;
         }
 
-        // If required dimensions are not fulfilled by this tile,
-        // they will also not be fulfilled by its children, no candidate here.
-        if(rootTileNode.getWidth() < w || rootTileNode.getHeight() < h) {
+        // If required dimensions are not fulfilled by any unused tile of this subtree, no candidate here.
+        // Checked on the root first, whole mosaics without room for the tile are skipped at once.
+        if (!rootTileNode.mayFit(w, h)) {
             return;
         }
 
@@ -615,41 +937,36 @@ public class CutListThread implements Runnable {
     }
 
     /**
-     * Recursively copy specified note until maxLevel.
-     * Tile node specified has maximum level will also be included in the copy.
-     *
-     * @param tileNode
-     * @param maxLevel Copy until this node.
-     * @return The copy root node.
-     */
-    private static TileNode copy(TileNode tileNode, TileNode maxLevel) {
-        TileNode copy = new TileNode(tileNode);
-        copyChildren(tileNode, copy, maxLevel);
-        return copy;
-    }
-
-    /**
-     * Recursively copy node children until maxLevel node, maxLevel included.
-     * Root node is not copied.
+     * Copies the nodes on the path from the source node down to maxLevel, maxLevel included.
+     * Root node is not copied. Other subtrees are shared with the source tree, they're never modified once built.
      *
      * @param src Source tile node.
-     * @param dst Destiny tile node.
+     * @param dst Destiny tile node, a copy of the source one.
      * @param maxLevel Copy until this node.
+     * @return The copy of the maxLevel node, null if it's not under the source node.
      */
-    private static void copyChildren(TileNode src, TileNode dst, TileNode maxLevel) {
+    private static TileNode copyChildren(TileNode src, TileNode dst, TileNode maxLevel) {
 
         if (src == maxLevel) {
-            return;
+            return dst;
         }
 
-        if (src.getChild1() != null) {
+        // Sibling nodes don't overlap, maxLevel lies within a single child
+        if (src.getChild1() != null && contains(src.getChild1(), maxLevel)) {
             dst.setChild1(new TileNode(src.getChild1()));
-            copyChildren(src.getChild1(), dst.getChild1(), maxLevel);
+            return copyChildren(src.getChild1(), dst.getChild1(), maxLevel);
         }
 
-        if (src.getChild2() != null) {
+        if (src.getChild2() != null && contains(src.getChild2(), maxLevel)) {
             dst.setChild2(new TileNode(src.getChild2()));
-            copyChildren(src.getChild2(), dst.getChild2(), maxLevel);
+            return copyChildren(src.getChild2(), dst.getChild2(), maxLevel);
         }
+
+        return null;
+    }
+
+    private static boolean contains(TileNode tileNode, TileNode other) {
+        return other.getX1() >= tileNode.getX1() && other.getX2() <= tileNode.getX2()
+                && other.getY1() >= tileNode.getY1() && other.getY2() <= tileNode.getY2();
     }
 }
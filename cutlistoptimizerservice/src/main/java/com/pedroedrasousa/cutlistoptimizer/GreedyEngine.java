@@ -0,0 +1,18 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+/**
+ * Single pass engine, see {@link GreedyPlacer}.
+ * Its solution is only a fallback, published while the other engines search, it never stops them.
+ */
+public class GreedyEngine implements SolverEngine {
+
+    @Override
+    public String getName() {
+        return "greedy";
+    }
+
+    @Override
+    public void solve(SolverContext context) {
+        context.getIncumbent().offerFallback(GreedyPlacer.place(context.getTilesToFit(), context.getStockTiles(), context.getCfg(), context.getMaxNbrPanels()));
+    }
+}
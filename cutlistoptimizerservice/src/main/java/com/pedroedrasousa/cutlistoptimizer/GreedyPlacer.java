@@ -0,0 +1,170 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.*;
+
+import java.util.*;
+
+/**
+ * Constructive best area fit heuristic, every tile is placed once without any search.
+ * Layouts are far from what the search finds, but computing one only takes a few milliseconds, so it can be done
+ * synchronously and provide a first solution while the search is running.
+ */
+public class GreedyPlacer {
+
+    /**
+     * An unused tile node and the mosaic it belongs to.
+     */
+    private static class FreeSpace {
+
+        private final TileNode tileNode;
+
+        private final Mosaic mosaic;
+
+        private FreeSpace(TileNode tileNode, Mosaic mosaic) {
+            this.tileNode = tileNode;
+            this.mosaic = mosaic;
+        }
+    }
+
+    private GreedyPlacer() {}
+
+    /**
+     * Places the biggest tiles first, each one in the unused space with the least area it fits in.
+     * A new stock panel, the biggest available one the tile fits in, is only used when no unused space fits the tile.
+     *
+     * @return A solution holding every used panel, tiles that couldn't be placed are listed as no fit tiles.
+     */
+    public static Solution place(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, Configuration cfg, int maxNbrPanels) {
+
+        List<QuantifiedTileDimensions> tiles = new ArrayList<>(tilesToFit);
+        Collections.sort(tiles, new Comparator<QuantifiedTileDimensions>() {
+            public int compare(QuantifiedTileDimensions q1, QuantifiedTileDimensions q2) {
+                int diff = Long.compare(q2.getTileDimensions().getArea(), q1.getTileDimensions().getArea());
+                if (diff == 0) {
+                    diff = Integer.compare(q2.getTileDimensions().getMaxDimension(), q1.getTileDimensions().getMaxDimension());
+                }
+                return diff;
+            }
+        });
+
+        // Available stock panels, biggest area first
+        List<QuantifiedTileDimensions> stock = new ArrayList<>(stockTiles);
+        Collections.sort(stock, new Comparator<QuantifiedTileDimensions>() {
+            public int compare(QuantifiedTileDimensions q1, QuantifiedTileDimensions q2) {
+                return Long.compare(q2.getTileDimensions().getArea(), q1.getTileDimensions().getArea());
+            }
+        });
+        int[] nbrAvailable = new int[stock.size()];
+        for (int i = 0; i < stock.size(); i++) {
+            nbrAvailable[i] = stock.get(i).isUnlimited() ? maxNbrPanels : stock.get(i).getQuantity();
+        }
+
+        boolean allowRotation = cfg.getAllowTileRotation();
+        List<Mosaic> mosaics = new ArrayList<>();
+        List<FreeSpace> freeSpaces = new ArrayList<>();
+        List<TileDimensions> noFitTiles = new ArrayList<>();
+
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tiles) {
+            TileDimensions tile = quantifiedTileDimensions.getTileDimensions();
+            TileDimensions rotated = allowRotation && !tile.isSquare() ? tile.rotate90() : null;
+
+            for (int i = 0; i < quantifiedTileDimensions.getQuantity(); i++) {
+
+                // Unused space with the least area the tile fits in
+                int bestIdx = -1;
+                TileDimensions bestTile = null;
+                for (int j = 0; j < freeSpaces.size(); j++) {
+                    TileNode tileNode = freeSpaces.get(j).tileNode;
+                    if (bestIdx != -1 && tileNode.getArea() >= freeSpaces.get(bestIdx).tileNode.getArea()) {
+                        continue;
+                    }
+                    if (fits(tile, tileNode.getWidth(), tileNode.getHeight())) {
+                        bestIdx = j;
+                        bestTile = tile;
+                    } else if (rotated != null && fits(rotated, tileNode.getWidth(), tileNode.getHeight())) {
+                        bestIdx = j;
+                        bestTile = rotated;
+                    }
+                }
+
+                // Start a new panel
+                if (bestIdx == -1 && mosaics.size() < maxNbrPanels) {
+                    for (int j = 0; j < stock.size(); j++) {
+                        if (nbrAvailable[j] == 0) {
+                            continue;
+                        }
+                        TileDimensions panel = stock.get(j).getTileDimensions();
+                        if (fits(tile, panel.getWidth(), panel.getHeight())) {
+                            bestTile = tile;
+                        } else if (rotated != null && fits(rotated, panel.getWidth(), panel.getHeight())) {
+                            bestTile = rotated;
+                        } else {
+                            continue;
+                        }
+                        nbrAvailable[j]--;
+                        Mosaic mosaic = new Mosaic(panel);
+                        mosaics.add(mosaic);
+                        freeSpaces.add(new FreeSpace(mosaic.getRootTileNode(), mosaic));
+                        bestIdx = freeSpaces.size() - 1;
+                        break;
+                    }
+                }
+
+                if (bestIdx == -1) {
+                    noFitTiles.add(tile);
+                    continue;
+                }
+
+                FreeSpace freeSpace = freeSpaces.remove(bestIdx);
+                place(bestTile, freeSpace, cfg.getCutThickness(), freeSpaces);
+            }
+        }
+
+        Solution solution = new Solution(new ArrayList<TileDimensions>());
+        for (Mosaic mosaic : mosaics) {
+            solution.addMosaic(mosaic);
+        }
+        solution.setNoFitTiles(noFitTiles);
+
+        return solution;
+    }
+
+    private static boolean fits(TileDimensions tile, int width, int height) {
+        return tile.getWidth() <= width && tile.getHeight() <= height;
+    }
+
+    /**
+     * Places the tile in the top left corner of the unused space, and keeps track of the unused space left by the split.
+     * Splits in the direction leaving the biggest unused area in one piece.
+     */
+    private static void place(TileDimensions tile, FreeSpace freeSpace, int cutThickness, List<FreeSpace> freeSpaces) {
+
+        TileNode tileNode = freeSpace.tileNode;
+
+        // No need to split, tile has the exact required dimensions.
+        if (tileNode.getWidth() == tile.getWidth() && tileNode.getHeight() == tile.getHeight()) {
+            tileNode.setExternalId(tile.getId());
+            tileNode.setFinal(true);
+            return;
+        }
+
+        long rightWidth = Math.max(tileNode.getWidth() - tile.getWidth() - cutThickness, 0);
+        long bottomHeight = Math.max(tileNode.getHeight() - tile.getHeight() - cutThickness, 0);
+
+        // Splitting horizontally first leaves the whole height at the right, vertically first the whole width below
+        long biggestHV = Math.max(rightWidth * tileNode.getHeight(), tile.getWidth() * bottomHeight);
+        long biggestVH = Math.max(tileNode.getWidth() * bottomHeight, rightWidth * tile.getHeight());
+
+        List<Cut> cuts;
+        if (biggestHV >= biggestVH) {
+            cuts = CutListThread.splitHV(tileNode, tile, cutThickness);
+        } else {
+            cuts = CutListThread.splitVH(tileNode, tile, cutThickness);
+        }
+        freeSpace.mosaic.addCuts(cuts);
+
+        for (TileNode unusedTile : tileNode.getUnusedTiles()) {
+            freeSpaces.add(new FreeSpace(unusedTile, freeSpace.mosaic));
+        }
+    }
+}
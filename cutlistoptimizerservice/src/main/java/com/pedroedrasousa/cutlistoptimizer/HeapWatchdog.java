@@ -0,0 +1,129 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.*;
+
+/**
+ * Watches the heap occupancy left after garbage collections, so a single huge task can't push the whole service into
+ * GC thrashing.
+ * When occupancy crosses {@link #DEGRADE_HEAP_OCCUPANCY} the task estimated to take the most memory is degraded, its
+ * memory budget halved. Past {@link #ABORT_HEAP_OCCUPANCY} it's aborted, keeping the best solution found so far.
+ * Only one task is acted upon per collection, the effect of the previous action is seen on the next one.
+ */
+public class HeapWatchdog {
+
+    private final static Logger logger = LoggerFactory.getLogger(HeapWatchdog.class);
+
+    private static long CHECK_INTERVAL_MS = 1000;
+
+    private static float DEGRADE_HEAP_OCCUPANCY = 0.80f;
+
+    private static float ABORT_HEAP_OCCUPANCY = 0.95f;
+
+    private static final HeapWatchdog instance = new HeapWatchdog();
+
+    private final Set<SolverContext> contexts = new HashSet<>();
+
+    private Timer timer;
+
+    /**
+     * Number of collections when the last action was taken.
+     */
+    private long lastActionCollectionCount = -1;
+
+    private HeapWatchdog() {}
+
+    public static HeapWatchdog getInstance() {
+        return instance;
+    }
+
+    /**
+     * Watches the specified task until it's unregistered.
+     */
+    public synchronized void register(SolverContext context) {
+        contexts.add(context);
+        if (timer == null) {
+            timer = new Timer("heap-watchdog", true);
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    check();
+                }
+            }, CHECK_INTERVAL_MS, CHECK_INTERVAL_MS);
+        }
+    }
+
+    public synchronized void unregister(SolverContext context) {
+        contexts.remove(context);
+    }
+
+    private synchronized void check() {
+
+        if (contexts.isEmpty()) {
+            return;
+        }
+
+        long collectionCount = getCollectionCount();
+        if (collectionCount == lastActionCollectionCount) {
+            return;
+        }
+
+        float occupancy = getHeapOccupancy();
+        if (occupancy < DEGRADE_HEAP_OCCUPANCY) {
+            return;
+        }
+
+        // Tasks not keeping any solutions right now have nothing to narrow
+        SolverContext largest = null;
+        for (SolverContext context : contexts) {
+            if (!context.isCancelled() && context.getEstimatedMemory() > 0 && (largest == null || context.getEstimatedMemory() > largest.getEstimatedMemory())) {
+                largest = context;
+            }
+        }
+        if (largest == null) {
+            return;
+        }
+
+        if (occupancy >= ABORT_HEAP_OCCUPANCY) {
+            logger.warn("Task[{}] Aborted, heap occupancy at {}% estimated task memory[{}]", largest.getCfg().getTaskId(), (int) (occupancy * 100), largest.getEstimatedMemory());
+            largest.abort();
+        } else {
+            largest.degrade();
+            logger.warn("Task[{}] Degraded, heap occupancy at {}% memory budget[{}]", largest.getCfg().getTaskId(), (int) (occupancy * 100), largest.getMemoryBudget());
+        }
+        lastActionCollectionCount = collectionCount;
+    }
+
+    private static long getCollectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return Ratio between the heap used after the last collections and the maximum heap size.
+     */
+    private static float getHeapOccupancy() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage == null) {
+                usage = pool.getUsage();
+            }
+            used += usage.getUsed();
+        }
+        return (float) used / (float) Runtime.getRuntime().maxMemory();
+    }
+}
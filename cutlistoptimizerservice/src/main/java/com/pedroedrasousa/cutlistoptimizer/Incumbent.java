@@ -0,0 +1,177 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.comparator.SolutionComparatorFactory;
+import com.pedroedrasousa.cutlistoptimizer.comparator.SolutionMostNbrTilesComparator;
+import com.pedroedrasousa.cutlistoptimizer.model.*;
+
+import java.util.*;
+
+/**
+ * Best solutions found so far for a task, shared by every engine solving it.
+ * Whenever solutions are offered the best one is published to the task.
+ */
+public class Incumbent {
+
+    private final List<Solution> solutions = new ArrayList<>();
+
+    private final RunningTasks.Task task;
+
+    private final Configuration cfg;
+
+    /**
+     * Least stock area able to hold every tile, -1 if unknown.
+     */
+    private long lowerBoundArea = -1;
+
+    /**
+     * Solution published before the search started, see {@link #offerFallback}.
+     */
+    private volatile Solution fallback;
+
+    public Incumbent(RunningTasks.Task task, Configuration cfg) {
+        this.task = task;
+        this.cfg = cfg;
+    }
+
+    public void setLowerBoundArea(long lowerBoundArea) {
+        this.lowerBoundArea = lowerBoundArea;
+    }
+
+    /**
+     * Sorts the specified solutions according to the configured priorities, best first.
+     */
+    static void sort(List<Solution> solutions, Configuration cfg) {
+        Collections.sort(solutions, getComparator(cfg));
+    }
+
+    /**
+     * @return Comparator ranking solutions according to the configured priorities, best first.
+     */
+    static Comparator<Solution> getComparator(Configuration cfg) {
+
+        final List<Comparator> solutionComparators = new ArrayList<>();
+
+        List<String> criterias = new ArrayList<>(cfg.getPriorities());
+
+        // Solutions without all fitted tiles will go last
+        solutionComparators.add(new SolutionMostNbrTilesComparator());
+
+        for (String priotity : criterias) {
+            Comparator comparator = SolutionComparatorFactory.getSolutionComparator(priotity);
+
+            if (comparator != null) {
+                solutionComparators.add(comparator);
+            }
+        }
+
+        return new Comparator<Solution>() {
+            @Override
+            public int compare(Solution o1, Solution o2) {
+
+                int diff = 0;
+
+                for (Comparator<Solution> solutionComparator : solutionComparators) {
+                    diff = solutionComparator.compare(o1, o2);
+                    if (diff != 0) {
+                        break;
+                    }
+                }
+
+                return diff;
+            }
+        };
+    }
+
+    public void offer(Solution solution) {
+        offer(Collections.singletonList(solution), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Publishes a solution to fall back on, which is never considered by {@link #isSolved} and {@link #isBoundMet}.
+     * Engines must not stop searching because of it, they'd miss better layouts.
+     */
+    public void offerFallback(Solution solution) {
+        fallback = solution;
+        offer(solution);
+    }
+
+    /**
+     * Merges the specified solutions with the kept ones and publishes the best one to the task.
+     *
+     * @param nbrToKeep Number of best ranked solutions to keep, besides the worst one.
+     */
+    public void offer(List<Solution> newSolutions, int nbrToKeep) {
+        synchronized (solutions) {
+            solutions.addAll(newSolutions);
+            sort(solutions, cfg);
+            ArrayList<Solution> solutionsToRemove = new ArrayList<>();
+            solutionsToRemove.addAll(solutions.subList(Math.min(solutions.size() - 1, nbrToKeep), solutions.size() - 1));
+            solutions.removeAll(solutionsToRemove);
+
+            // Remove unused panels from the final solution
+            solutions.get(0).removeUnusedMosaics();
+
+            task.setSolution((new TilingResponseDTOBuilder()).setSolutions(solutions.get(0)).setInfo(null).setCompact(cfg.isCompactResponse()).build());
+        }
+    }
+
+    /**
+     * @return The best solution found so far, null if there's none.
+     */
+    public Solution getBest() {
+        synchronized (solutions) {
+            return solutions.isEmpty() ? null : solutions.get(0);
+        }
+    }
+
+    /**
+     * @return The best solution found by the engines, the fallback excluded, null if there's none.
+     */
+    private Solution getBestFound() {
+        synchronized (solutions) {
+            for (Solution solution : solutions) {
+                if (solution != fallback) {
+                    return solution;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return Whether a solution fitting every tile was found by the engines.
+     */
+    public boolean isSolved() {
+        return isSolvedBesides(null);
+    }
+
+    /**
+     * @return Whether a solution fitting every tile, other than the specified one, was found by the engines.
+     */
+    public boolean isSolvedBesides(Solution excluded) {
+        synchronized (solutions) {
+            for (Solution solution : solutions) {
+                if (solution != excluded && solution != fallback && solution.getNoFitTiles().size() == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return Whether a solution fitting every tile in the least possible stock area was found by the engines, no engine
+     * can find a solution wasting less.
+     */
+    public boolean isBoundMet() {
+        Solution best = getBestFound();
+        if (best == null || best.getNoFitTiles().size() > 0 || lowerBoundArea < 0) {
+            return false;
+        }
+        long area = 0;
+        for (Mosaic mosaic : best.getMosaics()) {
+            area += mosaic.getRootTileNode().getArea();
+        }
+        return area <= lowerBoundArea;
+    }
+}
@@ -0,0 +1,241 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.Mosaic;
+import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
+import com.pedroedrasousa.cutlistoptimizer.model.TileNode;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of single panel layouts shared by every task.
+ * A layout is addressed by the panel dimensions, cut thickness, rotation flag and the multiset of the dimensions of
+ * the tiles it holds. Whenever the tiles still to be fitted match a cached layout for an empty panel, the layout can be
+ * used as is instead of searching for it again.
+ * Memory is bounded by the total number of cached tile nodes and cuts, least recently used layouts are evicted first.
+ */
+public class PanelPatternCache {
+
+    private static int MAX_CACHED_NODES = 500000;
+
+    private static final PanelPatternCache instance = new PanelPatternCache();
+
+    /**
+     * A cached layout, kept detached from any solution.
+     */
+    private static class Pattern {
+
+        private final Mosaic mosaic;
+
+        private final int weight;
+
+        private Pattern(Mosaic mosaic, int weight) {
+            this.mosaic = mosaic;
+            this.weight = weight;
+        }
+    }
+
+    public static class Stats {
+
+        private final long hits;
+
+        private final long misses;
+
+        private final long evictions;
+
+        private final int size;
+
+        private final long nbrNodes;
+
+        private final long maxNbrNodes;
+
+        private Stats(long hits, long misses, long evictions, int size, long nbrNodes, long maxNbrNodes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.nbrNodes = nbrNodes;
+            this.maxNbrNodes = maxNbrNodes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public float getHitRatio() {
+            return hits + misses == 0 ? 0f : (float) hits / (float) (hits + misses);
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getNbrNodes() {
+            return nbrNodes;
+        }
+
+        public long getMaxNbrNodes() {
+            return maxNbrNodes;
+        }
+
+        @Override
+        public String toString() {
+            return "PanelPatternCache{hits=" + hits + ", misses=" + misses + ", hitRatio=" + getHitRatio() +
+                    ", evictions=" + evictions + ", size=" + size + ", nbrNodes=" + nbrNodes + "/" + maxNbrNodes + '}';
+        }
+    }
+
+    private final LinkedHashMap<String, Pattern> patterns = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long nbrNodes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private PanelPatternCache() {}
+
+    public static PanelPatternCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Key identifying the dimensions of a tile within a multiset.
+     * If rotation is allowed, orientation doesn't matter.
+     */
+    public static String getTileKey(int width, int height, boolean allowRotation) {
+        if (allowRotation && width < height) {
+            return height + "x" + width;
+        }
+        return width + "x" + height;
+    }
+
+    private static String getKey(int panelWidth, int panelHeight, int cutThickness, boolean allowRotation, SortedMap<String, Integer> tiles) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(panelWidth).append('x').append(panelHeight);
+        sb.append('|').append(cutThickness);
+        sb.append('|').append(allowRotation);
+        for (Map.Entry<String, Integer> entry : tiles.entrySet()) {
+            sb.append('|').append(entry.getKey()).append('*').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Stores the layout of the specified panel.
+     * An already cached layout for the same tiles is only replaced if the new one needs less cuts.
+     */
+    public void put(Mosaic mosaic, int cutThickness, boolean allowRotation) {
+
+        TileNode root = mosaic.getRootTileNode();
+
+        SortedMap<String, Integer> tiles = new TreeMap<>();
+        for (TileNode tileNode : root.getFinalTiles()) {
+            String tileKey = getTileKey(tileNode.getWidth(), tileNode.getHeight(), allowRotation);
+            Integer count = tiles.get(tileKey);
+            tiles.put(tileKey, count != null ? count + 1 : 1);
+        }
+
+        if (tiles.isEmpty()) {
+            return;
+        }
+
+        String key = getKey(root.getWidth(), root.getHeight(), cutThickness, allowRotation, tiles);
+
+        synchronized (this) {
+            Pattern existing = patterns.get(key);
+            if (existing != null && existing.mosaic.getNbrCuts() <= mosaic.getNbrCuts()) {
+                return;
+            }
+        }
+
+        // Copy outside the lock, layout is detached from the solution it came from
+        Mosaic copy = mosaic.copyWithNewIds();
+        Pattern pattern = new Pattern(copy, countNodes(copy.getRootTileNode()) + copy.getNbrCuts());
+
+        synchronized (this) {
+            Pattern replaced = patterns.put(key, pattern);
+            if (replaced != null) {
+                nbrNodes -= replaced.weight;
+            }
+            nbrNodes += pattern.weight;
+
+            Iterator<Map.Entry<String, Pattern>> iterator = patterns.entrySet().iterator();
+            while (nbrNodes > MAX_CACHED_NODES && iterator.hasNext()) {
+                nbrNodes -= iterator.next().getValue().weight;
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Looks up a layout holding exactly the specified tiles in a panel with the specified dimensions.
+     *
+     * @param tiles Multiset of the tiles to fit, keyed by {@link #getTileKey(int, int, boolean)}.
+     * @param tilesToAssign Tiles matching the multiset, their ids are assigned to the final tiles of the layout.
+     * @return A new mosaic with the cached layout, null if there's none.
+     */
+    public Mosaic get(TileDimensions panel, int cutThickness, boolean allowRotation, SortedMap<String, Integer> tiles, List<TileDimensions> tilesToAssign) {
+
+        Pattern pattern;
+        synchronized (this) {
+            pattern = patterns.get(getKey(panel.getWidth(), panel.getHeight(), cutThickness, allowRotation, tiles));
+        }
+
+        if (pattern == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+
+        Mosaic mosaic = pattern.mosaic.copyWithNewIds();
+
+        // Final tiles of the layout take the ids of the tiles being fitted
+        Map<String, Deque<Integer>> ids = new HashMap<>();
+        for (TileDimensions tileDimensions : tilesToAssign) {
+            String tileKey = getTileKey(tileDimensions.getWidth(), tileDimensions.getHeight(), allowRotation);
+            Deque<Integer> tileIds = ids.get(tileKey);
+            if (tileIds == null) {
+                tileIds = new ArrayDeque<>();
+                ids.put(tileKey, tileIds);
+            }
+            tileIds.add(tileDimensions.getId());
+        }
+        for (TileNode tileNode : mosaic.getRootTileNode().getFinalTiles()) {
+            Deque<Integer> tileIds = ids.get(getTileKey(tileNode.getWidth(), tileNode.getHeight(), allowRotation));
+            if (tileIds != null && !tileIds.isEmpty()) {
+                tileNode.setExternalId(tileIds.poll());
+            }
+        }
+
+        return mosaic;
+    }
+
+    public Stats getStats() {
+        synchronized (this) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), patterns.size(), nbrNodes, MAX_CACHED_NODES);
+        }
+    }
+
+    private static int countNodes(TileNode tileNode) {
+        int count = 1;
+        if (tileNode.getChild1() != null) {
+            count += countNodes(tileNode.getChild1());
+        }
+        if (tileNode.getChild2() != null) {
+            count += countNodes(tileNode.getChild2());
+        }
+        return count;
+    }
+}
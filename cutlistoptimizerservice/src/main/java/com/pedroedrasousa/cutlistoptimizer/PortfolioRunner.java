@@ -0,0 +1,80 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several engines concurrently on the same task, sharing its incumbent.
+ * As soon as an engine finishes with the incumbent meeting the bound, the remaining ones are cancelled.
+ * Quick engines take a few milliseconds, they're run beforehand in the calling thread so a first solution is available
+ * as soon as the task is submitted.
+ */
+public class PortfolioRunner {
+
+    private final static Logger logger = LoggerFactory.getLogger(PortfolioRunner.class);
+
+    private final List<SolverEngine> quickEngines;
+
+    private final List<SolverEngine> engines;
+
+    public PortfolioRunner(List<SolverEngine> quickEngines, List<SolverEngine> engines) {
+        this.quickEngines = quickEngines;
+        this.engines = engines;
+    }
+
+    /**
+     * Runs the quick engines one after the other, returns once they're all done.
+     */
+    public void runQuick(SolverContext context) {
+        for (SolverEngine engine : quickEngines) {
+            long startTime = System.currentTimeMillis();
+            try {
+                engine.solve(context);
+            } catch (Exception e) {
+                logger.error("Task[" + context.getCfg().getTaskId() + "] Engine " + engine.getName() + " failed", e);
+            }
+            logger.info("Task[{}] Engine {} finished in {} ms", context.getCfg().getTaskId(), engine.getName(), System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Runs the engines other than the quick ones, returns once every one finished or was cancelled.
+     * Engines are driven from their own threads, the work they submit to the context pool is shared.
+     */
+    public void run(final SolverContext context) {
+
+        List<Thread> threads = new ArrayList<>();
+
+        for (final SolverEngine engine : engines) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    long startTime = System.currentTimeMillis();
+                    try {
+                        engine.solve(context);
+                    } catch (Exception e) {
+                        logger.error("Task[" + context.getCfg().getTaskId() + "] Engine " + engine.getName() + " failed", e);
+                    }
+                    logger.info("Task[{}] Engine {} finished in {} ms", context.getCfg().getTaskId(), engine.getName(), System.currentTimeMillis() - startTime);
+
+                    if (context.getIncumbent().isBoundMet()) {
+                        context.cancel();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Task[{}] Interrupted", context.getCfg().getTaskId());
+            context.cancel();
+        }
+    }
+}
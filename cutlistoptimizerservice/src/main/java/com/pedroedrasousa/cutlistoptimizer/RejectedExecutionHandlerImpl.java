@@ -1,12 +1,21 @@
 package com.pedroedrasousa.cutlistoptimizer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 
 public class RejectedExecutionHandlerImpl implements RejectedExecutionHandler {
 
+    private final static Logger logger = LoggerFactory.getLogger(RejectedExecutionHandlerImpl.class);
+
     @Override
     public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-        System.out.println(r.toString() + " is rejected");
+        logger.warn("{} is rejected", r);
+
+        // Let the submitter know, so it doesn't wait for a thread that will never run
+        throw new RejectedExecutionException(r.toString() + " is rejected");
     }
 }
\ No newline at end of file
@@ -0,0 +1,274 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.Configuration;
+import com.pedroedrasousa.cutlistoptimizer.model.Cut;
+import com.pedroedrasousa.cutlistoptimizer.model.QuantifiedTileDimensions;
+import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
+import com.pedroedrasousa.cutlistoptimizer.model.TillingResponseDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Cache of the final solutions of completed tasks, addressed by the content of the request.
+ * Bounded LRU in memory, backed by an optional directory on disk set through the {@value #CACHE_DIR_PROPERTY} system
+ * property. Files on disk are bounded as well, least recently used ones are deleted first and unused ones expire.
+ */
+public class ResultCache {
+
+    private final static Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    public static final String CACHE_DIR_PROPERTY = "cutlistoptimizer.cache.dir";
+
+    private static int MAX_ENTRIES_IN_MEMORY = 100;
+
+    private static int MAX_ENTRIES_ON_DISK = 1000;
+
+    /**
+     * Files on disk not used for this long are deleted.
+     */
+    private static long MAX_AGE_ON_DISK_MS = 7L * 24 * 60 * 60 * 1000;
+
+    /**
+     * Part of every key, must be increased whenever a change to the solver or the response format changes the
+     * results, so the ones computed before aren't served anymore.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Classes a cached result is made of, files holding any other class are not read.
+     */
+    private static final Set<String> CACHED_CLASSES = new HashSet<>(Arrays.asList(
+            TillingResponseDTO.class.getName(),
+            TillingResponseDTO.Mosaic.class.getName(),
+            TillingResponseDTO.Tile.class.getName(),
+            TillingResponseDTO.NoFitTile.class.getName(),
+            Cut.class.getName(),
+            ArrayList.class.getName()));
+
+    /**
+     * Only resolves the classes a cached result is made of, so files on disk can't have arbitrary classes instantiated.
+     */
+    private static class CachedResultInputStream extends ObjectInputStream {
+
+        private CachedResultInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!CACHED_CLASSES.contains(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "Not part of a cached result");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("Proxy classes are not part of a cached result");
+        }
+    }
+
+    private static final ResultCache instance = new ResultCache();
+
+    private final Map<String, TillingResponseDTO> entries = new LinkedHashMap<String, TillingResponseDTO>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TillingResponseDTO> eldest) {
+            return size() > MAX_ENTRIES_IN_MEMORY;
+        }
+    };
+
+    private final File cacheDir;
+
+    private ResultCache() {
+        this(System.getProperty(CACHE_DIR_PROPERTY));
+    }
+
+    /**
+     * @param cacheDirPath Directory to cache results on disk, only cached in memory if null or empty.
+     */
+    ResultCache(String cacheDirPath) {
+        if (cacheDirPath != null && !cacheDirPath.isEmpty()) {
+            File dir = new File(cacheDirPath);
+            if (dir.isDirectory() || dir.mkdirs()) {
+                logger.info("Caching results on disk at {}", dir.getAbsolutePath());
+                cacheDir = dir;
+            } else {
+                logger.warn("Unable to use {} as result cache directory", dir.getAbsolutePath());
+                cacheDir = null;
+            }
+        } else {
+            cacheDir = null;
+        }
+    }
+
+    public static ResultCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Builds the canonical key of a request.
+     * Tiles and stock are merged and sorted, so the order in which they were submitted doesn't matter. Only the
+     * configuration fields that affect the computed solution are considered.
+     *
+     * @return Hex encoded SHA-256 of the canonical request content.
+     */
+    public static String getKey(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, Configuration cfg) {
+        return getKey(tilesToFit, stockTiles, cfg, VERSION);
+    }
+
+    static String getKey(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, Configuration cfg, int version) {
+
+        // Tile ids are part of the response, so they're part of the key
+        TreeMap<String, Integer> tiles = new TreeMap<>();
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tilesToFit) {
+            TileDimensions tileDimensions = quantifiedTileDimensions.getTileDimensions();
+            String tileKey = String.format("%d:%dx%d", tileDimensions.getId(), tileDimensions.getWidth(), tileDimensions.getHeight());
+            Integer quantity = tiles.get(tileKey);
+            tiles.put(tileKey, (quantity != null ? quantity : 0) + quantifiedTileDimensions.getQuantity());
+        }
+
+        // Stock ids are not
+        TreeMap<String, Integer> stock = new TreeMap<>();
+        for (QuantifiedTileDimensions quantifiedTileDimensions : stockTiles) {
+            TileDimensions tileDimensions = quantifiedTileDimensions.getTileDimensions();
+            String stockKey = tileDimensions.getWidth() + "x" + tileDimensions.getHeight();
+            Integer quantity = stock.get(stockKey);
+            if (quantifiedTileDimensions.isUnlimited() || (quantity != null && quantity == QuantifiedTileDimensions.UNLIMITED)) {
+                stock.put(stockKey, QuantifiedTileDimensions.UNLIMITED);
+            } else {
+                stock.put(stockKey, (quantity != null ? quantity : 0) + quantifiedTileDimensions.getQuantity());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("version=").append(version);
+        sb.append("tiles").append(tiles);
+        sb.append("stock").append(stock);
+        sb.append("cutThickness=").append(cfg.getCutThickness());
+        sb.append(",allowTileRotation=").append(cfg.getAllowTileRotation());
+        sb.append(",forceOneBaseTile=").append(cfg.getForceOneBaseTile());
+        sb.append(",accuracyFactor=").append(cfg.getAccuracyFactor());
+        sb.append(",priorities=").append(cfg.getPriorities());
+        sb.append(",blockPacking=").append(cfg.isBlockPacking());
+        sb.append(",anytime=").append(cfg.isAnytime());
+        sb.append(",timeBudget=").append(cfg.getTimeBudget());
+        sb.append(",profile=").append(SearchProfile.getSearchProfile(cfg));
+        sb.append(",beamWidthSchedule=").append(cfg.getBeamWidthSchedule());
+        sb.append(",memoryBudget=").append(cfg.getMemoryBudget());
+        sb.append(",compactResponse=").append(cfg.isCompactResponse());
+
+        // Warm started tasks are only searched briefly from the previous layout, they must not be mistaken for full ones
+        sb.append(",warmStartTaskId=").append(cfg.getWarmStartTaskId());
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return The cached solution for the specified key, null if there's none.
+     */
+    public synchronized TillingResponseDTO get(String key) {
+        TillingResponseDTO solution = entries.get(key);
+        if (solution == null && cacheDir != null) {
+            solution = read(key);
+            if (solution != null) {
+                entries.put(key, solution);
+            }
+        }
+        return solution;
+    }
+
+    public synchronized void put(String key, TillingResponseDTO solution) {
+        if (solution == null) {
+            return;
+        }
+        entries.put(key, solution);
+        if (cacheDir != null) {
+            write(key, solution);
+        }
+    }
+
+    private TillingResponseDTO read(String key) {
+        File file = new File(cacheDir, key + ".ser");
+        if (!file.isFile()) {
+            return null;
+        }
+        if (System.currentTimeMillis() - file.lastModified() > MAX_AGE_ON_DISK_MS) {
+            file.delete();
+            return null;
+        }
+        TillingResponseDTO solution;
+        try (ObjectInputStream in = new CachedResultInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            solution = (TillingResponseDTO) in.readObject();
+        } catch (Exception e) {
+            // Corrupted, written by another version or not a cached result, it's a miss and the file is useless
+            logger.warn("Unable to read cached result {}, deleting it: {}", file.getAbsolutePath(), e.toString());
+            file.delete();
+            return null;
+        }
+
+        // Modification time tells when the file was last used
+        file.setLastModified(System.currentTimeMillis());
+        return solution;
+    }
+
+    private void write(String key, TillingResponseDTO solution) {
+        File file = new File(cacheDir, key + ".ser");
+        File tmpFile = new File(cacheDir, key + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeObject(solution);
+        } catch (IOException e) {
+            logger.warn("Unable to write cached result {}: {}", file.getAbsolutePath(), e.toString());
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+        }
+        evict();
+    }
+
+    /**
+     * Deletes the expired files and the least recently used ones above {@link #MAX_ENTRIES_ON_DISK}.
+     */
+    private void evict() {
+        File[] files = cacheDir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".ser");
+            }
+        });
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(f2.lastModified(), f1.lastModified());
+            }
+        });
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < files.length; i++) {
+            if (i >= MAX_ENTRIES_ON_DISK || now - files[i].lastModified() > MAX_AGE_ON_DISK_MS) {
+                files[i].delete();
+            }
+        }
+    }
+}
@@ -27,7 +27,11 @@ public class RunningTasks {
         this.tasks = tasks;
     }
 
-    public Task getTask(String id) {
+    public synchronized void addTask(Task task) {
+        tasks.add(task);
+    }
+
+    public synchronized Task getTask(String id) {
         for (Task task : tasks) {
             if (task.getId().equals(id)) {
                 return task;
@@ -36,11 +40,15 @@ public class RunningTasks {
         return null;
     }
 
-    public void removeTask(String id) {
+    /**
+     * Removes the specified task, its computation is stopped once no other task is attached to it.
+     */
+    public synchronized void removeTask(String id) {
         for (Iterator<Task> iterator = tasks.iterator(); iterator.hasNext(); ) {
             Task task = iterator.next();
             if (task.getId().equals(id)) {
                 iterator.remove();
+                task.detach();
             }
         }
     }
@@ -65,10 +73,60 @@ public class RunningTasks {
 
         private HashMap<Integer, Integer> iterationsProgress;
 
+        /**
+         * Task whose computation this one is attached to, null if it's computed by itself.
+         * Status and solution of attached tasks are the ones of the task they're attached to.
+         */
+        private Task leader;
+
+        /**
+         * Number of tasks relying on this task computation, including itself.
+         */
+        private int nbrAttached = 1;
+
+        private volatile boolean isStopped;
+
         public Task(String id) {
             this.id = id;
         }
 
+        /**
+         * Creates a task that follows the computation of the specified one.
+         */
+        Task(String id, Task leader) {
+            this.id = id;
+            this.leader = leader;
+        }
+
+        /**
+         * Registers one more task relying on this task computation.
+         *
+         * @return False if the computation was already stopped, nothing can be attached to it.
+         */
+        synchronized boolean attach() {
+            if (isStopped) {
+                return false;
+            }
+            nbrAttached++;
+            return true;
+        }
+
+        /**
+         * Releases this task from the computation it relies on, which is stopped when no task relies on it anymore.
+         */
+        void detach() {
+            Task task = leader != null ? leader : this;
+            synchronized (task) {
+                if (--task.nbrAttached <= 0) {
+                    task.isStopped = true;
+                }
+            }
+        }
+
+        public boolean isStopped() {
+            return leader != null ? leader.isStopped() : isStopped;
+        }
+
         public Task(String id, String statusMessage) {
             this.id = id;
             this.statusMessage = statusMessage;
@@ -83,6 +141,9 @@ public class RunningTasks {
         }
 
         public TillingResponseDTO getSolution() {
+            if (leader != null) {
+                return leader.getSolution();
+            }
             return solution;
         }
 
@@ -91,6 +152,9 @@ public class RunningTasks {
         }
 
         public String getStatusMessage() {
+            if (leader != null) {
+                return leader.getStatusMessage();
+            }
             return statusMessage;
         }
 
@@ -98,15 +162,21 @@ public class RunningTasks {
             this.statusMessage = statusMessage;
         }
 
-        public int getRunningThreads() {
+        public synchronized int getRunningThreads() {
+            if (leader != null) {
+                return leader.getRunningThreads();
+            }
             return runningThreads;
         }
 
-        public void setRunningThreads(int runningThreads) {
+        public synchronized void setRunningThreads(int runningThreads) {
             this.runningThreads = runningThreads;
         }
 
         public int getPercentageDone() {
+            if (leader != null) {
+                return leader.getPercentageDone();
+            }
             return percentageDone;
         }
 
@@ -114,15 +184,18 @@ public class RunningTasks {
             this.percentageDone = percentageDone;
         }
 
-        public int incrementRunningThreads() {
+        public synchronized int incrementRunningThreads() {
             return ++this.runningThreads;
         }
 
-        public int decrementRunningThreads() {
+        public synchronized int decrementRunningThreads() {
             return --this.runningThreads;
         }
 
         public int getNbrTotalThreads() {
+            if (leader != null) {
+                return leader.getNbrTotalThreads();
+            }
             return nbrTotalThreads;
         }
 
@@ -131,6 +204,9 @@ public class RunningTasks {
         }
 
         public int getIterationsCompleted() {
+            if (leader != null) {
+                return leader.getIterationsCompleted();
+            }
             return iterationsCompleted;
         }
 
@@ -138,15 +214,18 @@ public class RunningTasks {
             this.iterationsCompleted = iterationsCompleted;
         }
 
-        public int incrementNbrTotalThreads() {
+        public synchronized int incrementNbrTotalThreads() {
             return ++this.nbrTotalThreads;
         }
 
-        public int decrementNbrTotalThreads() {
+        public synchronized int decrementNbrTotalThreads() {
             return --this.nbrTotalThreads;
         }
 
         public int getTotalIterations() {
+            if (leader != null) {
+                return leader.getTotalIterations();
+            }
             return totalIterations;
         }
 
@@ -155,6 +234,9 @@ public class RunningTasks {
         }
 
         public HashMap<Integer, Integer> getIterationsProgress() {
+            if (leader != null) {
+                return leader.getIterationsProgress();
+            }
             return iterationsProgress;
         }
 
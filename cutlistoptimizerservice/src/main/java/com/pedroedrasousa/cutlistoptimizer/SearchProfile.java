@@ -0,0 +1,141 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.Configuration;
+
+/**
+ * How much searching a task is allowed: beam width, number of tile permutations and number of candidate stock
+ * solutions, along with a default time budget.
+ */
+public class SearchProfile {
+
+    public static final SearchProfile FAST = new SearchProfile("FAST", 0.25f, 20, 10, 2, 3000);
+
+    public static final SearchProfile BALANCED = new SearchProfile("BALANCED", 1.0f, 80, 50, 0, 0);
+
+    public static final SearchProfile THOROUGH = new SearchProfile("THOROUGH", 3.0f, 240, 120, 0, 0);
+
+    /**
+     * Budgets up to this are searched with the fast profile.
+     */
+    private static final long FAST_BUDGET_MS = 5000;
+
+    /**
+     * Budgets from this on are searched with the thorough profile, the ones in between with a profile in between.
+     */
+    private static final long THOROUGH_BUDGET_MS = 60000;
+
+    private final String name;
+
+    /**
+     * Factor applied to the number of solutions kept at each step, derived from the stock usage.
+     */
+    private final float beamWidthFactor;
+
+    private final int minBeamWidth;
+
+    private final int maxNbrPermutations;
+
+    /**
+     * Maximum number of candidate stock solutions to search, 0 if unlimited.
+     */
+    private final int maxNbrStockSolutions;
+
+    /**
+     * Time budget used when none is configured, 0 if unbounded.
+     */
+    private final long defaultBudget;
+
+    private SearchProfile(String name, float beamWidthFactor, int minBeamWidth, int maxNbrPermutations, int maxNbrStockSolutions, long defaultBudget) {
+        this.name = name;
+        this.beamWidthFactor = beamWidthFactor;
+        this.minBeamWidth = minBeamWidth;
+        this.maxNbrPermutations = maxNbrPermutations;
+        this.maxNbrStockSolutions = maxNbrStockSolutions;
+        this.defaultBudget = defaultBudget;
+    }
+
+    /**
+     * Profile for the specified configuration.
+     * If no profile is named, it's derived from the time budget, as thorough as the budget allows.
+     */
+    public static SearchProfile getSearchProfile(Configuration cfg) {
+        if (cfg.getProfile() != null) {
+            if (cfg.getProfile().equalsIgnoreCase(FAST.name)) {
+                return FAST;
+            } else if (cfg.getProfile().equalsIgnoreCase(BALANCED.name)) {
+                return BALANCED;
+            } else if (cfg.getProfile().equalsIgnoreCase(THOROUGH.name)) {
+                return THOROUGH;
+            }
+        }
+        return getSearchProfile(cfg.getTimeBudget());
+    }
+
+    /**
+     * Profile as thorough as the specified budget allows.
+     * Beam width and number of permutations grow geometrically from the fast profile to the thorough one, as the
+     * budget grows from {@link #FAST_BUDGET_MS} to {@link #THOROUGH_BUDGET_MS}. Every stock solution takes about the
+     * same time to search, their number grows along with the budget.
+     *
+     * @param budget Time budget in milliseconds, balanced profile if 0 or less, the search is then unbounded.
+     */
+    public static SearchProfile getSearchProfile(long budget) {
+        if (budget <= 0) {
+            return BALANCED;
+        }
+        if (budget <= FAST_BUDGET_MS) {
+            return FAST;
+        }
+        if (budget >= THOROUGH_BUDGET_MS) {
+            return THOROUGH;
+        }
+
+        // Position of the budget between the fast and the thorough ones, on a logarithmic scale
+        double position = Math.log((double) budget / FAST_BUDGET_MS) / Math.log((double) THOROUGH_BUDGET_MS / FAST_BUDGET_MS);
+
+        return new SearchProfile("BUDGET_" + budget + "MS",
+                (float) interpolate(FAST.beamWidthFactor, THOROUGH.beamWidthFactor, position),
+                (int) Math.round(interpolate(FAST.minBeamWidth, THOROUGH.minBeamWidth, position)),
+                (int) Math.round(interpolate(FAST.maxNbrPermutations, THOROUGH.maxNbrPermutations, position)),
+                (int) (FAST.maxNbrStockSolutions * budget / FAST_BUDGET_MS),
+                0);
+    }
+
+    private static double interpolate(double from, double to, double position) {
+        return from * Math.pow(to / from, position);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of solutions to keep at each step of the search.
+     *
+     * @param usedArea Ratio between the area of the tiles and the area of the stock solution being searched.
+     */
+    public int getBeamWidth(float usedArea) {
+        int beamWidth = (int) (100.0f * Math.pow(usedArea, 3.0f) * beamWidthFactor);
+        return Math.max(beamWidth, minBeamWidth);
+    }
+
+    public int getMaxNbrPermutations() {
+        return maxNbrPermutations;
+    }
+
+    public int getMaxNbrStockSolutions() {
+        return maxNbrStockSolutions;
+    }
+
+    /**
+     * @return Time budget for the specified configuration, 0 if unbounded.
+     */
+    public long getBudget(Configuration cfg) {
+        return cfg.getTimeBudget() > 0 ? cfg.getTimeBudget() : defaultBudget;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
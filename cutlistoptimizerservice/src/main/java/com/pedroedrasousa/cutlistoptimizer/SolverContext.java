@@ -0,0 +1,207 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.Configuration;
+import com.pedroedrasousa.cutlistoptimizer.model.QuantifiedTileDimensions;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Input of the engines solving a task, shared by every engine running for it.
+ */
+public class SolverContext {
+
+    private final List<QuantifiedTileDimensions> tilesToFit;
+
+    private final List<QuantifiedTileDimensions> stockTiles;
+
+    private final Configuration cfg;
+
+    private final RunningTasks.Task task;
+
+    private final Incumbent incumbent;
+
+    /**
+     * Pool the engines submit their work to.
+     */
+    private final ThreadPoolExecutor executor;
+
+    private final int maxNbrPanels;
+
+    private SearchProfile searchProfile = SearchProfile.BALANCED;
+
+    /**
+     * Time after which the engines must stop, 0 if unbounded.
+     */
+    private long deadline;
+
+    private volatile boolean isCancelled;
+
+    /**
+     * Memory the solutions kept by the engines are allowed to take, in bytes. 0 if unbounded.
+     */
+    private volatile long memoryBudget;
+
+    /**
+     * Estimated memory taken by the solutions currently kept by the engines, in bytes.
+     */
+    private final AtomicLong estimatedMemory = new AtomicLong();
+
+    /**
+     * Whether the search was narrowed or aborted due to memory pressure, its result may be worse than usual.
+     */
+    private volatile boolean isDegraded;
+
+    /**
+     * Number of solutions generated by placing a tile, and bytes allocated while generating them.
+     */
+    private final AtomicLong nbrExpansions = new AtomicLong();
+
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    public SolverContext(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, Configuration cfg, RunningTasks.Task task, Incumbent incumbent, ThreadPoolExecutor executor, int maxNbrPanels) {
+        this.tilesToFit = tilesToFit;
+        this.stockTiles = stockTiles;
+        this.cfg = cfg;
+        this.task = task;
+        this.incumbent = incumbent;
+        this.executor = executor;
+        this.maxNbrPanels = maxNbrPanels;
+    }
+
+    public List<QuantifiedTileDimensions> getTilesToFit() {
+        return tilesToFit;
+    }
+
+    public List<QuantifiedTileDimensions> getStockTiles() {
+        return stockTiles;
+    }
+
+    public Configuration getCfg() {
+        return cfg;
+    }
+
+    public RunningTasks.Task getTask() {
+        return task;
+    }
+
+    public Incumbent getIncumbent() {
+        return incumbent;
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    public int getMaxNbrPanels() {
+        return maxNbrPanels;
+    }
+
+    public SearchProfile getSearchProfile() {
+        return searchProfile;
+    }
+
+    public void setSearchProfile(SearchProfile searchProfile) {
+        this.searchProfile = searchProfile;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Limits the time the engines are allowed to run, starting now.
+     */
+    public void setBudget(long budgetMs) {
+        this.deadline = System.currentTimeMillis() + budgetMs;
+    }
+
+    /**
+     * @return Milliseconds left until the deadline, at least 1, 0 if the engines aren't limited in time.
+     */
+    public long getRemainingBudget() {
+        return deadline != 0 ? Math.max(deadline - System.currentTimeMillis(), 1) : 0;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public long getEstimatedMemory() {
+        return estimatedMemory.get();
+    }
+
+    public void addEstimatedMemory(long delta) {
+        estimatedMemory.addAndGet(delta);
+    }
+
+    /**
+     * @return Whether the solutions kept by the engines are estimated to take more than the memory budget.
+     */
+    public boolean isOverMemoryBudget() {
+        return memoryBudget > 0 && estimatedMemory.get() > memoryBudget;
+    }
+
+    /**
+     * Halves the memory budget below the current estimate, engines narrow their beams to fit it.
+     * The budget never drops to 0, that would leave the engines unbounded.
+     */
+    public void degrade() {
+        long estimate = Math.max(1, estimatedMemory.get() / 2);
+        memoryBudget = memoryBudget > 0 ? Math.min(memoryBudget, estimate) : estimate;
+        isDegraded = true;
+    }
+
+    /**
+     * Stops the engines, keeping the best solution found so far.
+     */
+    public void abort() {
+        isDegraded = true;
+        cancel();
+    }
+
+    public boolean isDegraded() {
+        return isDegraded;
+    }
+
+    public void addExpansions(long nbrExpansions, long allocatedBytes) {
+        this.nbrExpansions.addAndGet(nbrExpansions);
+        this.allocatedBytes.addAndGet(allocatedBytes);
+    }
+
+    public long getNbrExpansions() {
+        return nbrExpansions.get();
+    }
+
+    /**
+     * @return Average number of bytes allocated per generated solution, 0 if none was generated.
+     */
+    public long getAllocatedBytesPerExpansion() {
+        long expansions = nbrExpansions.get();
+        return expansions > 0 ? allocatedBytes.get() / expansions : 0;
+    }
+
+    /**
+     * @return Whether the time budget was exhausted, engines may have stopped before finishing their search.
+     */
+    public boolean isBudgetExhausted() {
+        return deadline != 0 && System.currentTimeMillis() >= deadline;
+    }
+
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    /**
+     * @return Whether engines must stop, either because the context was cancelled, the task was stopped or the budget
+     * was exhausted.
+     */
+    public boolean isCancelled() {
+        return isCancelled || task.isStopped() || isBudgetExhausted();
+    }
+}
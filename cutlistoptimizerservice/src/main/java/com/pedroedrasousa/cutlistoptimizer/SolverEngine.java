@@ -0,0 +1,16 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+/**
+ * A strategy for searching solutions for a task.
+ * Engines report every solution they find to the incumbent of the provided context, and are expected to return as soon
+ * as the context is cancelled.
+ */
+public interface SolverEngine {
+
+    String getName();
+
+    /**
+     * Searches for solutions, returns once the search is exhausted or the context was cancelled.
+     */
+    void solve(SolverContext context);
+}
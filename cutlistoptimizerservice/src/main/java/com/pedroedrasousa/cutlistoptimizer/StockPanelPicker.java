@@ -1,9 +1,9 @@
 package com.pedroedrasousa.cutlistoptimizer;
 
-import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
+import com.pedroedrasousa.cutlistoptimizer.model.QuantifiedTileDimensions;
 
 import java.util.List;
 
 public interface StockPanelPicker {
-    StockSolution getCandidateStockSolutions(List<TileDimensions> tilesToFit, List<TileDimensions> stockTiles, float areaDelta, int nbrSpare, List<StockSolution> exclusions, int minNbrPanels, int maxNbrTiles);
+    StockSolutionIterator iterator(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, float areaDelta, int nbrSpare, int minNbrPanels, int maxNbrTiles);
 }
@@ -3,13 +3,21 @@ package com.pedroedrasousa.cutlistoptimizer;
 import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
 public class StockSolution {
 
     private List<TileDimensions> stockTileDimensions = new ArrayList<>();
 
+    /**
+     * Orientation insensitive representation of the stock tiles multiset, lazily computed.
+     * Sorted sequence of (max dimension, min dimension, count) triples.
+     */
+    private int[] canonicalForm;
+
+    private int hash;
+
     public StockSolution(List<TileDimensions> tilesDimensions) {
         this.stockTileDimensions = tilesDimensions;
     }
@@ -22,6 +30,7 @@ public class StockSolution {
 
     public void addStockTile(TileDimensions tileDimensions) {
         stockTileDimensions.add(tileDimensions);
+        canonicalForm = null;
     }
 
     public List<TileDimensions> getStockTileDimensions() {
@@ -30,8 +39,41 @@ public class StockSolution {
 
     public void setStockTileDimensions(List<TileDimensions> stockTileDimensions) {
         this.stockTileDimensions = stockTileDimensions;
+        canonicalForm = null;
     }
 
+    private int[] getCanonicalForm() {
+        if (canonicalForm == null) {
+            // Pack each normalized dimension in a long, sorting the longs sorts by max dimension and then min dimension
+            long[] dimensions = new long[stockTileDimensions.size()];
+            for (int i = 0; i < dimensions.length; i++) {
+                TileDimensions tileDimensions = stockTileDimensions.get(i);
+                dimensions[i] = ((long) tileDimensions.getMaxDimension() << 32) | Math.min(tileDimensions.getWidth(), tileDimensions.getHeight());
+            }
+            Arrays.sort(dimensions);
+
+            int[] form = new int[dimensions.length * 3];
+            int length = 0;
+            for (int i = 0; i < dimensions.length; i++) {
+                if (i > 0 && dimensions[i] == dimensions[i - 1]) {
+                    form[length - 1]++;
+                } else {
+                    form[length++] = (int) (dimensions[i] >>> 32);
+                    form[length++] = (int) dimensions[i];
+                    form[length++] = 1;
+                }
+            }
+
+            canonicalForm = Arrays.copyOf(form, length);
+            hash = Arrays.hashCode(canonicalForm);
+        }
+        return canonicalForm;
+    }
+
+    /**
+     * Two stock solutions are equal if they have the same multiset of stock tile dimensions.
+     * Orientation doesn't matter.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -44,31 +86,13 @@ public class StockSolution {
             return false;
         }
 
-        List<TileDimensions> thatStockTileDimensionsCopy = new ArrayList<>(that.stockTileDimensions);
-
-        for (Iterator<TileDimensions> stockIterator = stockTileDimensions.iterator(); stockIterator.hasNext(); ) {
-            TileDimensions thisTileDimensions = stockIterator.next();
-            boolean match = false;
-            for (Iterator<TileDimensions> otherStockIterator = thatStockTileDimensionsCopy.iterator(); otherStockIterator.hasNext(); ) {
-                TileDimensions thatTileTimensions = otherStockIterator.next();
-                if (thisTileDimensions.hasSameDimensions(thatTileTimensions)) {
-                    match = true;
-                    otherStockIterator.remove();
-                    break;
-                }
-            }
-
-            if (!match) {
-                return false;
-            }
-        }
-
-        return true;
+        return hashCode() == that.hashCode() && Arrays.equals(this.getCanonicalForm(), that.getCanonicalForm());
     }
 
     @Override
     public int hashCode() {
-        return stockTileDimensions != null ? stockTileDimensions.hashCode() : 0;
+        getCanonicalForm();
+        return hash;
     }
 
     @Override
@@ -0,0 +1,333 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.QuantifiedTileDimensions;
+import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Iterates through the candidate stock solutions for a task, least total area first.
+ * The pending combinations queue is the cursor: every call to {@link #next()} resumes from where the previous one
+ * stopped. Calls are synchronized, so the iterator can be advanced from any thread.
+ * Combinations are expanded lazily, each one taken from the queue adds at most two: its first child and its next
+ * sibling, so the queue grows by at most one combination per call.
+ */
+public class StockSolutionIterator {
+
+    private final static Logger logger = LoggerFactory.getLogger(StockSolutionIterator.class);
+
+    /**
+     * Safety net for pathological stock lists, stop expanding combinations after this many iterations.
+     */
+    private static final int MAX_EXPANDED_COMBINATIONS = 200000;
+
+    /**
+     * A distinct stock panel dimension and how many panels of it are available.
+     * Unlimited stock panels are never materialized, their count is capped by the maximum number of panels in a solution.
+     */
+    private static class StockType {
+
+        private final TileDimensions tileDimensions;
+
+        private int count;
+
+        private StockType(TileDimensions tileDimensions) {
+            this.tileDimensions = tileDimensions;
+        }
+    }
+
+    /**
+     * A multiset of stock panels, represented as the number of panels used from each stock type.
+     * Panels are always added in non decreasing type index, so every multiset is generated only once.
+     * The first child of a combination adds one more panel of its last type, or of the next available one. Its next
+     * sibling replaces its last panel with one of the next available type.
+     */
+    private static class StockCombination {
+
+        private final int[] counts;
+
+        private final int lastType;
+
+        private final int nbrPanels;
+
+        private final long area;
+
+        private final long priority;
+
+        private StockCombination(int[] counts, int lastType, int nbrPanels, long area, long priority) {
+            this.counts = counts;
+            this.lastType = lastType;
+            this.nbrPanels = nbrPanels;
+            this.area = area;
+            this.priority = priority;
+        }
+    }
+
+    private static final Comparator<StockCombination> COMBINATION_COMPARATOR = new Comparator<StockCombination>() {
+        @Override
+        public int compare(StockCombination c1, StockCombination c2) {
+            int diff = Long.compare(c1.priority, c2.priority);
+            if (diff == 0) {
+                // Favour the most complete combination, will reach a candidate faster
+                diff = Long.compare(c2.area, c1.area);
+            }
+            if (diff == 0) {
+                diff = Integer.compare(c1.nbrPanels, c2.nbrPanels);
+            }
+            return diff;
+        }
+    };
+
+    private final long requiredArea;
+
+    private final int requiredMaxDimension;
+
+    private final int nbrSpare;
+
+    private final int minNbrPanels;
+
+    private final int maxNbrTiles;
+
+    private final List<StockType> allStockTypes;
+
+    private final List<StockType> stockTypes;
+
+    private final PriorityQueue<StockCombination> queue = new PriorityQueue<>(11, COMBINATION_COMPARATOR);
+
+    private final Set<StockSolution> exclusions = new HashSet<>();
+
+    private int nbrExpanded;
+
+    private int nbrReturned;
+
+    private boolean isLastResortReturned;
+
+    public StockSolutionIterator(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, float areaDelta, int nbrSpare, int minNbrPanels, int maxNbrTiles) {
+
+        int requiredMaxDimension = 0;
+        long smallestTilleArea = Long.MAX_VALUE;
+
+        // Calculate the required area for fitting every tile.
+        long requiredArea = 0;
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tilesToFit) {
+            TileDimensions tile = quantifiedTileDimensions.getTileDimensions();
+            requiredArea += tile.getArea() * quantifiedTileDimensions.getQuantity();
+            if (tile.getMaxDimension() > requiredMaxDimension) {
+                requiredMaxDimension = tile.getMaxDimension();
+            }
+            if (tile.getArea() < smallestTilleArea) {
+                smallestTilleArea = tile.getArea();
+            }
+        }
+
+        // Add required delta to area
+        this.requiredArea = (long)(requiredArea * (1.0f + areaDelta));
+        this.requiredMaxDimension = requiredMaxDimension;
+        this.nbrSpare = nbrSpare;
+        this.minNbrPanels = minNbrPanels;
+        this.maxNbrTiles = maxNbrTiles;
+
+        this.allStockTypes = getStockTypes(stockTiles, maxNbrTiles);
+
+        // Stock panels must fit the smallest tile
+        this.stockTypes = new ArrayList<>();
+        for (StockType stockType : allStockTypes) {
+            if (stockType.tileDimensions.getArea() >= smallestTilleArea) {
+                stockTypes.add(stockType);
+            }
+        }
+
+        // First combinations hold a single panel, from the smallest type on
+        addCombination(new int[stockTypes.size()], 0, 0, 0);
+    }
+
+    /**
+     * Groups the stock tiles by dimensions, sorted by area, least area first.
+     * Provided list is not modified.
+     */
+    private static List<StockType> getStockTypes(List<QuantifiedTileDimensions> stockTiles, int maxNbrTiles) {
+        Map<String, StockType> distinctStockTypes = new HashMap<>();
+        List<StockType> stockTypes = new ArrayList<>();
+        for (QuantifiedTileDimensions quantifiedTileDimensions : stockTiles) {
+            String key = quantifiedTileDimensions.getTileDimensions().dimensionsToString();
+            StockType stockType = distinctStockTypes.get(key);
+            if (stockType == null) {
+                stockType = new StockType(quantifiedTileDimensions.getTileDimensions());
+                distinctStockTypes.put(key, stockType);
+                stockTypes.add(stockType);
+            }
+            if (quantifiedTileDimensions.isUnlimited()) {
+                stockType.count = maxNbrTiles;
+            } else {
+                stockType.count = Math.min(stockType.count + quantifiedTileDimensions.getQuantity(), maxNbrTiles);
+            }
+        }
+
+        Collections.sort(stockTypes, new Comparator<StockType>() {
+            public int compare(StockType st1, StockType st2) {
+                return Long.compare(st1.tileDimensions.getArea(), st2.tileDimensions.getArea());
+            }
+        });
+
+        return stockTypes;
+    }
+
+    /**
+     * Lower bound for the area of any candidate reachable by adding panels to the specified combination, at least one
+     * and all of them of the specified type or bigger.
+     * This bounds both a combination with a panel of that type added and its next siblings, so combinations are taken
+     * from the queue in non decreasing priority.
+     */
+    private long getPriority(long area, int type, int nbrPanels) {
+        long biggestArea = stockTypes.get(stockTypes.size() - 1).tileDimensions.getArea();
+        long missingArea = requiredArea - area;
+        long nbrMissingPanels = missingArea > 0 ? (missingArea + biggestArea - 1) / biggestArea : 0;
+        nbrMissingPanels = Math.max(nbrMissingPanels, minNbrPanels - nbrPanels);
+        nbrMissingPanels = Math.max(nbrMissingPanels, 1);
+        return Math.max(requiredArea, area + nbrMissingPanels * stockTypes.get(type).tileDimensions.getArea());
+    }
+
+    private boolean isCandidate(StockCombination combination) {
+
+        if (combination.nbrPanels < Math.max(minNbrPanels, 1)) {
+            return false;
+        }
+
+        // At least one stock panel must have the maximum required dimension
+        boolean fits = false;
+
+        // Spare panels are the smallest ones, required area must be met without them
+        long spareArea = 0;
+        int nbrSpareToCount = nbrSpare;
+
+        for (int i = 0; i < combination.counts.length; i++) {
+            if (combination.counts[i] == 0) {
+                continue;
+            }
+            TileDimensions tileDimensions = stockTypes.get(i).tileDimensions;
+            if (tileDimensions.getMaxDimension() >= requiredMaxDimension) {
+                fits = true;
+            }
+            int nbrSpareOfType = Math.min(nbrSpareToCount, combination.counts[i]);
+            spareArea += nbrSpareOfType * tileDimensions.getArea();
+            nbrSpareToCount -= nbrSpareOfType;
+        }
+
+        return fits && nbrSpareToCount == 0 && combination.area - spareArea >= requiredArea;
+    }
+
+    private StockSolution toStockSolution(StockCombination combination) {
+        StockSolution stockSolution = new StockSolution();
+        for (int i = 0; i < combination.counts.length; i++) {
+            for (int j = 0; j < combination.counts[i]; j++) {
+                stockSolution.addStockTile(stockTypes.get(i).tileDimensions);
+            }
+        }
+        return stockSolution;
+    }
+
+    /**
+     * @return First stock type from the specified one having panels not used by the combination, -1 if none.
+     */
+    private int getAvailableType(int[] counts, int type) {
+        for (int i = type; i < stockTypes.size(); i++) {
+            if (counts[i] < stockTypes.get(i).count) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Queues the specified combination with one more panel of the first available type, from the specified one on.
+     *
+     * @param counts Panels of each type used by the combination, not modified.
+     */
+    private void addCombination(int[] counts, int type, int nbrPanels, long area) {
+        if (nbrPanels >= maxNbrTiles) {
+            return;
+        }
+        type = getAvailableType(counts, type);
+        if (type < 0) {
+            return;
+        }
+        int[] newCounts = Arrays.copyOf(counts, counts.length);
+        newCounts[type]++;
+        long newArea = area + stockTypes.get(type).tileDimensions.getArea();
+        queue.add(new StockCombination(newCounts, type, nbrPanels + 1, newArea, getPriority(area, type, nbrPanels)));
+    }
+
+    /**
+     * Queues the first child and the next sibling of the specified combination.
+     */
+    private void expand(StockCombination combination) {
+        addCombination(combination.counts, combination.lastType, combination.nbrPanels, combination.area);
+
+        int[] parentCounts = Arrays.copyOf(combination.counts, combination.counts.length);
+        parentCounts[combination.lastType]--;
+        long parentArea = combination.area - stockTypes.get(combination.lastType).tileDimensions.getArea();
+        addCombination(parentCounts, combination.lastType + 1, combination.nbrPanels - 1, parentArea);
+    }
+
+    /**
+     * Prevents the specified stock solution from being returned by this iterator.
+     */
+    public synchronized void exclude(StockSolution stockSolution) {
+        exclusions.add(stockSolution);
+    }
+
+    /**
+     * Advances the cursor to the next candidate stock solution.
+     *
+     * @return The next candidate stock solution, null if there are no more candidates.
+     */
+    public synchronized StockSolution next() {
+
+        while (!queue.isEmpty() && nbrExpanded < MAX_EXPANDED_COMBINATIONS) {
+            StockCombination combination = queue.poll();
+            nbrExpanded++;
+
+            // Following combinations are reachable from this one even if it's returned now
+            expand(combination);
+
+            if (isCandidate(combination)) {
+                StockSolution stockSolution = toStockSolution(combination);
+                if (exclusions.add(stockSolution)) {
+                    nbrReturned++;
+                    return stockSolution;
+                }
+            }
+        }
+
+        if (!queue.isEmpty()) {
+            logger.warn("Stopped looking for stock solutions after {} combinations", nbrExpanded);
+            queue.clear();
+        }
+
+        // Couldn't find stock tiles to fit the required area
+        // Return biggest stock tiles as last resort if not in exclusions
+        if (!isLastResortReturned) {
+            isLastResortReturned = true;
+
+            StockSolution stockSolution = new StockSolution();
+            for (int i = allStockTypes.size() - 1; i >= 0 && stockSolution.getStockTileDimensions().size() < maxNbrTiles; i--) {
+                StockType stockType = allStockTypes.get(i);
+                for (int j = 0; j < stockType.count && stockSolution.getStockTileDimensions().size() < maxNbrTiles; j++) {
+                    stockSolution.addStockTile(stockType.tileDimensions);
+                }
+            }
+            if (stockSolution.getStockTileDimensions().size() > 0 && exclusions.add(stockSolution)) {
+                nbrReturned++;
+                return stockSolution;
+            }
+        }
+
+        return null;
+    }
+
+    public synchronized int getNbrReturned() {
+        return nbrReturned;
+    }
+}
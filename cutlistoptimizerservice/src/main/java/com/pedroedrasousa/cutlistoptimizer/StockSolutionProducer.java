@@ -0,0 +1,77 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a small look-ahead queue of the next candidate stock solutions, so they're ready to be used as soon as there's
+ * capacity to compute them. Candidates are queued in the order they're returned by the iterator, least area first.
+ */
+public class StockSolutionProducer implements Runnable {
+
+    private final static Logger logger = LoggerFactory.getLogger(StockSolutionProducer.class);
+
+    private final StockSolutionIterator stockSolutionIterator;
+
+    private final BlockingQueue<StockSolution> lookAhead;
+
+    private final String taskId;
+
+    private volatile boolean isStopped;
+
+    private volatile boolean isFinished;
+
+    public StockSolutionProducer(StockSolutionIterator stockSolutionIterator, int lookAheadSize, String taskId) {
+        this.stockSolutionIterator = stockSolutionIterator;
+        this.lookAhead = new ArrayBlockingQueue<>(lookAheadSize);
+        this.taskId = taskId;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!isStopped) {
+                StockSolution stockSolution = stockSolutionIterator.next();
+                if (stockSolution == null) {
+                    break;
+                }
+
+                // Wait until the consumer makes room in the look-ahead queue, checking every so often if it's stopped
+                boolean isQueued = false;
+                while (!isStopped && !isQueued) {
+                    isQueued = lookAhead.offer(stockSolution, 100, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Task[{}] Stock solution producer interrupted", taskId);
+            Thread.currentThread().interrupt();
+        } finally {
+            isFinished = true;
+        }
+    }
+
+    /**
+     * Retrieves the next candidate stock solution, waiting up to the specified time if none is available yet.
+     *
+     * @return The next candidate, null if none became available in time.
+     */
+    public StockSolution poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return lookAhead.poll(timeout, unit);
+    }
+
+    /**
+     * Whether all candidates were produced and consumed.
+     */
+    public boolean isExhausted() {
+        return isFinished && lookAhead.isEmpty();
+    }
+
+    public void stop() {
+        isStopped = true;
+        lookAhead.clear();
+    }
+}
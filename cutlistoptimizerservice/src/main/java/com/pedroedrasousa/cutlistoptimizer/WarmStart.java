@@ -0,0 +1,212 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Keeps the final solutions of the most recent tasks, so an edited job can be resumed from the solution of the task it
+ * was edited from instead of being computed from scratch.
+ * Solutions are kept by request key, every task served with the same key can be resumed from, whether it was computed,
+ * attached to an identical task or served from the result cache.
+ */
+public class WarmStart {
+
+    private final static Logger logger = LoggerFactory.getLogger(WarmStart.class);
+
+    private static int MAX_KEPT_SOLUTIONS = 100;
+
+    private static int MAX_KEPT_TASKS = 1000;
+
+    private static final WarmStart instance = new WarmStart();
+
+    private static class FinalSolution {
+
+        private final Solution solution;
+
+        private final int cutThickness;
+
+        private final boolean allowTileRotation;
+
+        private FinalSolution(Solution solution, int cutThickness, boolean allowTileRotation) {
+            this.solution = solution;
+            this.cutThickness = cutThickness;
+            this.allowTileRotation = allowTileRotation;
+        }
+    }
+
+    /**
+     * Final solutions by request key.
+     */
+    private final Map<String, FinalSolution> finalSolutions = new LinkedHashMap<String, FinalSolution>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FinalSolution> eldest) {
+            return size() > MAX_KEPT_SOLUTIONS;
+        }
+    };
+
+    /**
+     * Request key of each task.
+     */
+    private final Map<String, String> taskKeys = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_KEPT_TASKS;
+        }
+    };
+
+    private WarmStart() {}
+
+    public static WarmStart getInstance() {
+        return instance;
+    }
+
+    /**
+     * Keeps the final solution of the specified task. Solution must not be modified afterwards.
+     *
+     * @param key Request key of the task, see {@link ResultCache#getKey}.
+     */
+    public synchronized void put(String taskId, String key, Solution solution, Configuration cfg) {
+        finalSolutions.put(key, new FinalSolution(solution, cfg.getCutThickness(), cfg.getAllowTileRotation()));
+        taskKeys.put(taskId, key);
+    }
+
+    /**
+     * Registers a task served with the solution computed for the specified request key, so it can be resumed from as
+     * well. The solution may not be available yet, if the computation is still running.
+     */
+    public synchronized void register(String taskId, String key) {
+        taskKeys.put(taskId, key);
+    }
+
+    /**
+     * Builds the solution to resume the search from.
+     * Previous final solution is copied, tiles no longer requested are released, and panels from the remaining stock
+     * are added for fitting the new ones.
+     *
+     * @param tilesToAdd List to append the tiles that still need to be fitted in the returned solution.
+     * @return The seed solution, null if there's no usable solution for the previous task.
+     */
+    public Solution seed(String previousTaskId, List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, Configuration cfg, int maxNbrPanels, List<QuantifiedTileDimensions> tilesToAdd) {
+
+        FinalSolution previous;
+        synchronized (this) {
+            String key = taskKeys.get(previousTaskId);
+            previous = key != null ? finalSolutions.get(key) : null;
+        }
+
+        if (previous == null) {
+            logger.info("Task[{}] No solution kept for task {}", cfg.getTaskId(), previousTaskId);
+            return null;
+        }
+
+        // Layouts are only valid for the same cut thickness and rotation rules
+        if (previous.cutThickness != cfg.getCutThickness() || previous.allowTileRotation != cfg.getAllowTileRotation()) {
+            logger.info("Task[{}] Configuration differs from task {}", cfg.getTaskId(), previousTaskId);
+            return null;
+        }
+
+        // Panels of the previous solution must still be available
+        Map<String, Integer> availableStock = new LinkedHashMap<>();
+        Map<String, TileDimensions> stockDimensions = new HashMap<>();
+        for (QuantifiedTileDimensions quantifiedTileDimensions : stockTiles) {
+            String key = quantifiedTileDimensions.getTileDimensions().dimensionsToString();
+            Integer available = availableStock.get(key);
+            if (quantifiedTileDimensions.isUnlimited() || (available != null && available == QuantifiedTileDimensions.UNLIMITED)) {
+                availableStock.put(key, QuantifiedTileDimensions.UNLIMITED);
+            } else {
+                availableStock.put(key, (available != null ? available : 0) + quantifiedTileDimensions.getQuantity());
+            }
+            stockDimensions.put(key, quantifiedTileDimensions.getTileDimensions());
+        }
+
+        // Requested quantity of each tile, orientation doesn't matter if rotation is allowed
+        Map<String, Integer> requested = new HashMap<>();
+        Map<String, TileDimensions> requestedDimensions = new LinkedHashMap<>();
+        for (QuantifiedTileDimensions quantifiedTileDimensions : tilesToFit) {
+            TileDimensions tileDimensions = quantifiedTileDimensions.getTileDimensions();
+            String key = getTileKey(tileDimensions.getId(), tileDimensions.getWidth(), tileDimensions.getHeight(), cfg.getAllowTileRotation());
+            Integer quantity = requested.get(key);
+            requested.put(key, (quantity != null ? quantity : 0) + quantifiedTileDimensions.getQuantity());
+            requestedDimensions.put(key, tileDimensions);
+        }
+
+        Solution solution = new Solution(new ArrayList<TileDimensions>());
+        int nbrReleased = 0;
+
+        for (Mosaic previousMosaic : previous.solution.getMosaics()) {
+            String panelKey = previousMosaic.getRootTileNode().toTileDimensions().dimensionsToString();
+            Integer available = availableStock.get(panelKey);
+            if (available == null || available == 0) {
+                logger.info("Task[{}] Stock panel {} used by task {} is no longer available", cfg.getTaskId(), panelKey, previousTaskId);
+                return null;
+            }
+            if (available != QuantifiedTileDimensions.UNLIMITED) {
+                availableStock.put(panelKey, available - 1);
+            }
+
+            // Tiles will be changed, previous solution must be kept intact
+            Mosaic mosaic = previousMosaic.copyWithNewIds();
+
+            // Release the placed tiles exceeding the requested quantity, they're left as unused space
+            for (TileNode tileNode : mosaic.getRootTileNode().getFinalTiles()) {
+                String key = getTileKey(tileNode.getExternalId(), tileNode.getWidth(), tileNode.getHeight(), cfg.getAllowTileRotation());
+                Integer quantity = requested.get(key);
+                if (quantity == null || quantity == 0) {
+                    tileNode.setFinal(false);
+                    tileNode.setExternalId(-1);
+                    nbrReleased++;
+                } else {
+                    requested.put(key, quantity - 1);
+                }
+            }
+
+            solution.addMosaic(mosaic);
+        }
+
+        // Whatever is still requested needs to be fitted
+        long areaToAdd = 0;
+        int nbrToAdd = 0;
+        for (Map.Entry<String, TileDimensions> entry : requestedDimensions.entrySet()) {
+            int quantity = requested.get(entry.getKey());
+            if (quantity > 0) {
+                tilesToAdd.add(new QuantifiedTileDimensions(entry.getValue(), quantity));
+                areaToAdd += entry.getValue().getArea() * quantity;
+                nbrToAdd += quantity;
+            }
+        }
+
+        // Add the biggest available panels until there's enough room for the new tiles
+        List<TileDimensions> extraPanels = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : availableStock.entrySet()) {
+            int count = entry.getValue() == QuantifiedTileDimensions.UNLIMITED ? maxNbrPanels : Math.min(entry.getValue(), maxNbrPanels);
+            for (int i = 0; i < count; i++) {
+                extraPanels.add(stockDimensions.get(entry.getKey()));
+            }
+        }
+        Collections.sort(extraPanels, new Comparator<TileDimensions>() {
+            public int compare(TileDimensions td1, TileDimensions td2) {
+                return Long.compare(td2.getArea(), td1.getArea());
+            }
+        });
+
+        long extraArea = 0;
+        for (TileDimensions panel : extraPanels) {
+            if (extraArea >= areaToAdd || solution.getMosaics().size() >= maxNbrPanels) {
+                break;
+            }
+            solution.addMosaic(new Mosaic(panel));
+            extraArea += panel.getArea();
+        }
+
+        logger.info("Task[{}] Resuming from task {}: released[{}] toAdd[{}] extraPanels[{}]", cfg.getTaskId(), previousTaskId, nbrReleased, nbrToAdd, solution.getMosaics().size() - previous.solution.getMosaics().size());
+
+        return solution;
+    }
+
+    private static String getTileKey(int id, int width, int height, boolean allowRotation) {
+        return id + ":" + PanelPatternCache.getTileKey(width, height, allowRotation);
+    }
+}
@@ -16,6 +16,50 @@ public class Configuration {
 
     private int accuracyFactor;
 
+    private boolean pipelined;
+
+    /**
+     * Whether high quantity tiles are placed in blocks of identical tiles.
+     */
+    private boolean blockPacking;
+
+    /**
+     * Whether the search is repeated with increasingly wider beams, until the task is stopped or its budget exhausted.
+     */
+    private boolean anytime;
+
+    /**
+     * Time the task is allowed to take, in milliseconds. 0 if unbounded.
+     */
+    private long timeBudget;
+
+    /**
+     * Name of the search profile, FAST, BALANCED or THOROUGH. If not set, it's chosen based on the time budget.
+     */
+    private String profile;
+
+    /**
+     * How the number of solutions kept varies while placing the tiles, CONSTANT, DEPTH or PLACED_AREA.
+     * Constant if not set.
+     */
+    private String beamWidthSchedule;
+
+    /**
+     * Whether panels cut with the same layout are sent once in the response, along with their count.
+     */
+    private boolean compactResponse;
+
+    /**
+     * Memory the solutions kept while searching are allowed to take, in megabytes. If not set, a share of the maximum
+     * heap size is used.
+     */
+    private long memoryBudget;
+
+    /**
+     * Id of a previous task to resume from, if this task is an edit of it.
+     */
+    private String warmStartTaskId;
+
     public String getTaskId() {
         return taskId;
     }
@@ -68,6 +112,78 @@ public class Configuration {
         this.accuracyFactor = accuracyFactor;
     }
 
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    public boolean isBlockPacking() {
+        return blockPacking;
+    }
+
+    public void setBlockPacking(boolean blockPacking) {
+        this.blockPacking = blockPacking;
+    }
+
+    public boolean isAnytime() {
+        return anytime;
+    }
+
+    public void setAnytime(boolean anytime) {
+        this.anytime = anytime;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(long timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public void setProfile(String profile) {
+        this.profile = profile;
+    }
+
+    public String getBeamWidthSchedule() {
+        return beamWidthSchedule;
+    }
+
+    public void setBeamWidthSchedule(String beamWidthSchedule) {
+        this.beamWidthSchedule = beamWidthSchedule;
+    }
+
+    public boolean isCompactResponse() {
+        return compactResponse;
+    }
+
+    public void setCompactResponse(boolean compactResponse) {
+        this.compactResponse = compactResponse;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public String getWarmStartTaskId() {
+        return warmStartTaskId;
+    }
+
+    public void setWarmStartTaskId(String warmStartTaskId) {
+        this.warmStartTaskId = warmStartTaskId;
+    }
+
     @Override
     public String toString() {
         return "Configuration{" +
@@ -77,6 +193,15 @@ public class Configuration {
                 ", forceOneBaseTile=" + forceOneBaseTile +
                 ", priorities=" + priorities +
                 ", accuracyFactor=" + accuracyFactor +
+                ", pipelined=" + pipelined +
+                ", blockPacking=" + blockPacking +
+                ", anytime=" + anytime +
+                ", timeBudget=" + timeBudget +
+                ", profile='" + profile + '\'' +
+                ", beamWidthSchedule='" + beamWidthSchedule + '\'' +
+                ", compactResponse=" + compactResponse +
+                ", memoryBudget=" + memoryBudget +
+                ", warmStartTaskId='" + warmStartTaskId + '\'' +
                 '}';
     }
 }
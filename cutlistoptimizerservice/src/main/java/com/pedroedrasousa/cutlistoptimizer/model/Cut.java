@@ -1,6 +1,10 @@
 package com.pedroedrasousa.cutlistoptimizer.model;
 
-public class Cut {
+import java.io.Serializable;
+
+public class Cut implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final int x1;
 
@@ -18,11 +22,11 @@ public class Cut {
 
     private final int cutCoords;
 
-    private final int originalTileId;
+    private final long originalTileId;
 
-    private final int child1TileId;
+    private final long child1TileId;
 
-    private final int child2TileId;
+    private final long child2TileId;
 
     public Cut(Cut cut) {
         this.x1 = cut.x1;
@@ -40,7 +44,7 @@ public class Cut {
         this.child2TileId = cut.child2TileId;
     }
 
-    public Cut(int x1, int y1, int x2, int y2, int originalWidth, int originalHeight, boolean isHorizontal, int cutCoords, int originalTileId, int child1TileId, int child2TileId) {
+    public Cut(int x1, int y1, int x2, int y2, int originalWidth, int originalHeight, boolean isHorizontal, int cutCoords, long originalTileId, long child1TileId, long child2TileId) {
         this.x1 = x1;
         this.x2 = x2;
         this.y1 = y1;
@@ -88,15 +92,15 @@ public class Cut {
         return y2;
     }
 
-    public int getOriginalTileId() {
+    public long getOriginalTileId() {
         return originalTileId;
     }
 
-    public int getChild1TileId() {
+    public long getChild1TileId() {
         return child1TileId;
     }
 
-    public int getChild2TileId() {
+    public long getChild2TileId() {
         return child2TileId;
     }
 
@@ -133,11 +137,11 @@ public class Cut {
 
         private int cutCoords;
 
-        private int originalTileId;
+        private long originalTileId;
 
-        private int child1TileId;
+        private long child1TileId;
 
-        private int child2TileId;
+        private long child2TileId;
 
         public int getX1() {
             return x1;
@@ -211,29 +215,29 @@ public class Cut {
             return this;
         }
 
-        public int getOriginalTileId() {
+        public long getOriginalTileId() {
             return originalTileId;
         }
 
-        public Builder setOriginalTileId(int originalTileId) {
+        public Builder setOriginalTileId(long originalTileId) {
             this.originalTileId = originalTileId;
             return this;
         }
 
-        public int getChild1TileId() {
+        public long getChild1TileId() {
             return child1TileId;
         }
 
-        public Builder setChild1TileId(int child1TileId) {
+        public Builder setChild1TileId(long child1TileId) {
             this.child1TileId = child1TileId;
             return this;
         }
 
-        public int getChild2TileId() {
+        public long getChild2TileId() {
             return child2TileId;
         }
 
-        public Builder setChild2TileId(int child2TileId) {
+        public Builder setChild2TileId(long child2TileId) {
             this.child2TileId = child2TileId;
             return this;
         }
@@ -0,0 +1,38 @@
+package com.pedroedrasousa.cutlistoptimizer.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids from blocks reserved by each thread, so threads creating many objects don't contend on a shared
+ * counter.
+ * Ids are non negative and unique among the ones handed by the same allocator. They're longs, so they never wrap around
+ * during the lifetime of the process, and responses are renumbered from 0.
+ */
+class IdAllocator {
+
+    /**
+     * Each block holds 2^BLOCK_BITS ids.
+     */
+    private static final int BLOCK_BITS = 10;
+
+    private final AtomicLong nextBlock = new AtomicLong();
+
+    /**
+     * Next id and end of the block reserved by the current thread.
+     */
+    private final ThreadLocal<long[]> block = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    long nextId() {
+        long[] block = this.block.get();
+        if (block[0] == block[1]) {
+            block[0] = nextBlock.getAndIncrement() << BLOCK_BITS;
+            block[1] = block[0] + (1 << BLOCK_BITS);
+        }
+        return block[0]++;
+    }
+}
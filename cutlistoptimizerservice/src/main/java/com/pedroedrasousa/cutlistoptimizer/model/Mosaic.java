@@ -4,50 +4,154 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 public class Mosaic {
 
     private final static Logger logger = LoggerFactory.getLogger(Mosaic.class);
 
+    /**
+     * Link of a persistent chain of cuts, last cut first. Chains are never modified, so they're shared between a mosaic
+     * and the ones derived from it.
+     */
+    private static class CutChain {
+
+        private final Cut cut;
+
+        private final CutChain previous;
+
+        private final int size;
+
+        private CutChain(Cut cut, CutChain previous) {
+            this.cut = cut;
+            this.previous = previous;
+            this.size = previous != null ? previous.size + 1 : 1;
+        }
+    }
+
     private TileNode rootTileNode;
 
-    private List<Cut> cuts;
+    private CutChain cuts;
+
+    /**
+     * Unused area, computed once queried. Tile nodes must not be modified afterwards.
+     */
+    private long unusedArea = -1;
 
     public Mosaic(Mosaic mosaic) {
         rootTileNode = new TileNode(mosaic.getRootTileNode());
-        this.cuts = new ArrayList<>(mosaic.getCuts());
+        this.cuts = mosaic.cuts;
     }
 
     public Mosaic(TileNode tileNode) {
-        cuts = new ArrayList<>();
         rootTileNode = new TileNode(tileNode);
     }
 
+    /**
+     * Mosaic derived from the specified one, having its cuts.
+     */
+    public Mosaic(TileNode tileNode, Mosaic mosaic) {
+        rootTileNode = new TileNode(tileNode);
+        this.cuts = mosaic.cuts;
+    }
+
     public Mosaic(TileDimensions tileDimensions) {
-        cuts = new ArrayList<>();
         rootTileNode = new TileNode(tileDimensions);
     }
 
+    /**
+     * Deep copies this mosaic, every copied tile node gets a new id.
+     * Cuts are copied referencing the new ids.
+     */
+    public Mosaic copyWithNewIds() {
+        Map<Long, Long> ids = new HashMap<>();
+        Mosaic copy = new Mosaic(copyWithNewIds(rootTileNode, ids));
+
+        for (Cut cut : getCuts()) {
+            copy.addCut(new Cut.Builder()
+                    .setX1(cut.getX1())
+                    .setY1(cut.getY1())
+                    .setX2(cut.getX2())
+                    .setY2(cut.getY2())
+                    .setOriginalWidth(cut.getOriginalWidth())
+                    .setOriginalHeight(cut.getOriginalHeight())
+                    .setHorizontal(cut.getIsHorizontal())
+                    .setCutCoords(cut.getCutCoords())
+                    .setOriginalTileId(getNewId(ids, cut.getOriginalTileId()))
+                    .setChild1TileId(getNewId(ids, cut.getChild1TileId()))
+                    .setChild2TileId(getNewId(ids, cut.getChild2TileId()))
+                    .build());
+        }
+
+        return copy;
+    }
+
+    private static TileNode copyWithNewIds(TileNode tileNode, Map<Long, Long> ids) {
+        TileNode copy = new TileNode(tileNode.getX1(), tileNode.getX2(), tileNode.getY1(), tileNode.getY2());
+        copy.setFinal(tileNode.isFinal());
+        copy.setExternalId(tileNode.getExternalId());
+        ids.put(tileNode.getId(), copy.getId());
+
+        if (tileNode.getChild1() != null) {
+            copy.setChild1(copyWithNewIds(tileNode.getChild1(), ids));
+        }
+        if (tileNode.getChild2() != null) {
+            copy.setChild2(copyWithNewIds(tileNode.getChild2(), ids));
+        }
+        return copy;
+    }
+
+    /**
+     * Cuts may reference nodes discarded for having no area, those keep their original id.
+     */
+    private static long getNewId(Map<Long, Long> ids, long id) {
+        Long newId = ids.get(id);
+        return newId != null ? newId : id;
+    }
+
     public TileNode getRootTileNode() {
         return rootTileNode;
     }
 
     public void setRootTileNode(TileNode rootTileNode) {
         this.rootTileNode = rootTileNode;
+        this.unusedArea = -1;
     }
 
+    /**
+     * @return The cuts in the order they were made, the returned list can't be modified.
+     */
     public List<Cut> getCuts() {
-        return cuts;
+        Cut[] array = new Cut[getNbrCuts()];
+        for (CutChain link = cuts; link != null; link = link.previous) {
+            array[link.size - 1] = link.cut;
+        }
+        List<Cut> list = new ArrayList<>(array.length);
+        Collections.addAll(list, array);
+        return Collections.unmodifiableList(list);
     }
 
     public void setCuts(List<Cut> cuts) {
-        this.cuts = cuts;
+        this.cuts = null;
+        addCuts(cuts);
+    }
+
+    public void addCut(Cut cut) {
+        cuts = new CutChain(cut, cuts);
+    }
+
+    public void addCuts(List<Cut> cuts) {
+        for (Cut cut : cuts) {
+            addCut(cut);
+        }
     }
 
     public int getNbrCuts() {
-        return cuts.size();
+        return cuts != null ? cuts.size : 0;
     }
 
     @Override
@@ -78,7 +182,10 @@ public class Mosaic {
     }
 
     public long getUnusedArea() {
-        return rootTileNode.getUnusedArea();
+        if (unusedArea < 0) {
+            unusedArea = rootTileNode.getUnusedArea();
+        }
+        return unusedArea;
     }
 
     public int getDepth() {
@@ -0,0 +1,38 @@
+package com.pedroedrasousa.cutlistoptimizer.model;
+
+/**
+ * Tile dimensions along with the number of tiles having them.
+ */
+public class QuantifiedTileDimensions {
+
+    /**
+     * Quantity of tiles with no supply limit.
+     */
+    public static final int UNLIMITED = -1;
+
+    private final TileDimensions tileDimensions;
+
+    private final int quantity;
+
+    public QuantifiedTileDimensions(TileDimensions tileDimensions, int quantity) {
+        this.tileDimensions = tileDimensions;
+        this.quantity = quantity;
+    }
+
+    public TileDimensions getTileDimensions() {
+        return tileDimensions;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public boolean isUnlimited() {
+        return quantity == UNLIMITED;
+    }
+
+    @Override
+    public String toString() {
+        return tileDimensions.dimensionsToString() + "*" + (isUnlimited() ? "unlimited" : quantity);
+    }
+}
@@ -4,36 +4,64 @@ import com.pedroedrasousa.cutlistoptimizer.StockSolution;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
 
 public class Solution {
 
-    private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
+    private static final IdAllocator ID_ALLOCATOR = new IdAllocator();
 
-    private final int id;
+    private final long id;
 
     private int permutationPriority;
 
     private long elapsedTime;
 
+    /**
+     * Mosaics sorted by unused area. The list is shared with copies of this solution until either is modified.
+     */
     private List<Mosaic> mosaics;
 
+    private boolean isMosaicsShared;
+
+    /**
+     * The list is shared with copies of this solution until either is modified.
+     */
     private List<TileDimensions> noFitTiles;
 
-    public Solution(Solution solution) {
-        mosaics = new ArrayList<>();
-        for (Mosaic mosaic : solution.mosaics) {
-            this.mosaics.add(new Mosaic(mosaic));
-        }
+    private boolean isNoFitTilesShared;
+
+    // Totals of the mosaics, updated as they're added and removed
+    private long unusedArea;
 
-        // TileDimensions is immutable, create a shallow copy.
-        this.noFitTiles = new ArrayList<>(solution.getNoFitTiles());
+    private int nbrCuts;
 
+    /**
+     * Tiles placed as part of blocks, besides the one tile each block counts as in the mosaics.
+     */
+    private int nbrPackedTiles;
+
+    /**
+     * Mosaics are shared with the copied solution, they're never modified once part of a solution.
+     */
+    public Solution(Solution solution) {
+        this.mosaics = solution.mosaics;
+        this.isMosaicsShared = true;
+        solution.isMosaicsShared = true;
+
+        // TileDimensions is immutable, share the list until modified.
+        this.noFitTiles = solution.noFitTiles;
+        this.isNoFitTilesShared = true;
+        solution.isNoFitTilesShared = true;
+
+        this.unusedArea = solution.unusedArea;
+        this.nbrCuts = solution.nbrCuts;
+        this.nbrPackedTiles = solution.nbrPackedTiles;
         this.permutationPriority = solution.permutationPriority;
 
-        this.id = NEXT_ID.getAndIncrement();
+        this.id = ID_ALLOCATOR.nextId();
     }
 
     public Solution(StockSolution stockSolution) {
@@ -43,45 +71,63 @@ public class Solution {
             this.addMosaic(new Mosaic(tileDimensions));
         }
 
-        this.id = NEXT_ID.getAndIncrement();
+        this.id = ID_ALLOCATOR.nextId();
     }
 
+    /**
+     * Mosaics are shared with the copied solution, they're never modified once part of a solution.
+     *
+     * @param excludeMosaic Mosaic not to be copied. Only its first occurrence is excluded, repeated layouts may be
+     *                      shared by several panels.
+     */
     public Solution(Solution solution, Mosaic excludeMosaic) {
-        mosaics = new ArrayList<>();
+        mosaics = new ArrayList<>(solution.mosaics.size());
+        boolean excluded = false;
         for (Mosaic mosaic : solution.mosaics) {
-            if (mosaic != excludeMosaic) {
-                this.mosaics.add(new Mosaic(mosaic));
+            if (mosaic != excludeMosaic || excluded) {
+                this.mosaics.add(mosaic);
+            } else {
+                excluded = true;
             }
         }
+        this.unusedArea = solution.unusedArea;
+        this.nbrCuts = solution.nbrCuts;
+        this.nbrPackedTiles = solution.nbrPackedTiles;
+        if (excluded) {
+            this.unusedArea -= excludeMosaic.getUnusedArea();
+            this.nbrCuts -= excludeMosaic.getNbrCuts();
+        }
 
-        // TileDimensions is immutable, create a shallow copy.
-        this.noFitTiles = new ArrayList<>(solution.getNoFitTiles());
+        // TileDimensions is immutable, share the list until modified.
+        this.noFitTiles = solution.noFitTiles;
+        this.isNoFitTilesShared = true;
+        solution.isNoFitTilesShared = true;
 
         this.permutationPriority = solution.permutationPriority;
-        this.id = NEXT_ID.getAndIncrement();
+        this.id = ID_ALLOCATOR.nextId();
     }
 
     public Solution(TileNode baseTile) {
         mosaics = new ArrayList<>();
         noFitTiles = new ArrayList<>();
-        mosaics.add(new Mosaic(baseTile));
-        this.id = NEXT_ID.getAndIncrement();
+        addMosaic(new Mosaic(baseTile));
+        this.id = ID_ALLOCATOR.nextId();
     }
 
     public Solution(TileNode... tileNodes) {
         mosaics = new ArrayList<>();
         noFitTiles = new ArrayList<>();
         for (TileNode tileNode : tileNodes) {
-            this.mosaics.add(new Mosaic(tileNode));
+            this.addMosaic(new Mosaic(tileNode));
         }
-        this.id = NEXT_ID.getAndIncrement();
+        this.id = ID_ALLOCATOR.nextId();
     }
 
     public Solution(TileDimensions tileDimensions) {
         mosaics = new ArrayList<>();
         noFitTiles = new ArrayList<>();
-        mosaics.add(new Mosaic(tileDimensions));
-        this.id = NEXT_ID.getAndIncrement();
+        addMosaic(new Mosaic(tileDimensions));
+        this.id = ID_ALLOCATOR.nextId();
     }
 
     public Solution(TileDimensions... tileDimensionsList) {
@@ -90,7 +136,7 @@ public class Solution {
         for (TileDimensions tileDimensions : tileDimensionsList) {
             this.addMosaic(new Mosaic(tileDimensions));
         }
-        this.id = NEXT_ID.getAndIncrement();
+        this.id = ID_ALLOCATOR.nextId();
     }
 
     public Solution(List<TileDimensions> tileDimensionsList) {
@@ -99,10 +145,10 @@ public class Solution {
         for (TileDimensions tileDimensions : tileDimensionsList) {
             this.addMosaic(new Mosaic(tileDimensions));
         }
-        this.id = NEXT_ID.getAndIncrement();
+        this.id = ID_ALLOCATOR.nextId();
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
@@ -114,16 +160,6 @@ public class Solution {
         this.permutationPriority = permutationPriority;
     }
 
-    private void sortMosaics() {
-        // Java 8
-        //Collections.sort(mosaics, Comparator.comparingInt(Mosaic::getUnusedArea));
-        Collections.sort(mosaics, new Comparator<Mosaic>() {
-            public int compare(Mosaic m1, Mosaic m2) {
-                return Long.compare(m1.getUnusedArea(), m2.getUnusedArea());
-            }
-        });
-    }
-
     public long getElapsedTime() {
         return elapsedTime;
     }
@@ -132,18 +168,84 @@ public class Solution {
         this.elapsedTime = elapsedTime;
     }
 
+    /**
+     * Inserts the specified mosaic after the ones with less or as much unused area, keeping the mosaics sorted.
+     */
     public void addMosaic(Mosaic mosaic) {
-        this.mosaics.add(mosaic);
-        sortMosaics();
+        copyMosaicsIfShared();
+
+        int low = 0;
+        int high = mosaics.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mosaics.get(mid).getUnusedArea() <= mosaic.getUnusedArea()) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        mosaics.add(low, mosaic);
+
+        unusedArea += mosaic.getUnusedArea();
+        nbrCuts += mosaic.getNbrCuts();
     }
 
+    /**
+     * @return The mosaics sorted by unused area, the returned list can't be modified.
+     */
     public final List<Mosaic> getMosaics() {
-        //return Collections.unmodifiableList(mosaics); TODO: ???
-        return mosaics;
+        return Collections.unmodifiableList(mosaics);
     }
 
     public void removeMosaic(Mosaic mosaic) {
-        this.mosaics.remove(mosaic);
+        copyMosaicsIfShared();
+        int idx = mosaics.indexOf(mosaic);
+        if (idx >= 0) {
+            Mosaic removed = mosaics.remove(idx);
+            unusedArea -= removed.getUnusedArea();
+            nbrCuts -= removed.getNbrCuts();
+        }
+    }
+
+    /**
+     * Removes the mosaics without any tile.
+     */
+    public void removeUnusedMosaics() {
+        copyMosaicsIfShared();
+        for (Iterator<Mosaic> iterator = mosaics.iterator(); iterator.hasNext(); ) {
+            Mosaic mosaic = iterator.next();
+            if (mosaic.getUsedArea() == 0) {
+                iterator.remove();
+                unusedArea -= mosaic.getUnusedArea();
+                nbrCuts -= mosaic.getNbrCuts();
+            }
+        }
+    }
+
+    private void copyMosaicsIfShared() {
+        if (isMosaicsShared) {
+            mosaics = new ArrayList<>(mosaics);
+            isMosaicsShared = false;
+        }
+    }
+
+    /**
+     * Replaces the mosaics holding the same layout and tiles by a single instance, repeated in the list, so panels cut
+     * the same way are stored once.
+     */
+    public void shareIdenticalMosaics() {
+        copyMosaicsIfShared();
+        TileNodeInterner interner = new TileNodeInterner(true);
+        Map<Integer, Mosaic> patterns = new HashMap<>();
+        for (int i = 0; i < mosaics.size(); i++) {
+            int structureId = interner.intern(mosaics.get(i).getRootTileNode());
+            Mosaic pattern = patterns.get(structureId);
+            if (pattern == null) {
+                patterns.put(structureId, mosaics.get(i));
+            } else {
+                mosaics.set(i, pattern);
+            }
+        }
     }
 
     public float getUsedAreaRatio() {
@@ -189,8 +291,11 @@ public class Solution {
         return count;
     }
 
+    /**
+     * @return Number of placed tiles, tiles placed as part of blocks included.
+     */
     public int getNbrFinalTiles() {
-        int count = 0;
+        int count = nbrPackedTiles;
         for (Mosaic tileNode : mosaics) {
             count += tileNode.getRootTileNode().getNbrFinalTiles();
         }
@@ -215,19 +320,39 @@ public class Solution {
     }
 
     public long getUnusedArea() {
-        long unusedArea = 0;
-        for (Mosaic tileNode : mosaics) {
-            unusedArea += tileNode.getRootTileNode().getUnusedArea();
-        }
         return unusedArea;
     }
 
+    /**
+     * @return The tiles that couldn't be fitted, the returned list can't be modified.
+     */
     public List<TileDimensions> getNoFitTiles() {
-        return noFitTiles;
+        return Collections.unmodifiableList(noFitTiles);
+    }
+
+    public int getNbrNoFitTiles() {
+        return noFitTiles.size();
+    }
+
+    public void addPackedTiles(int nbrPackedTiles) {
+        this.nbrPackedTiles += nbrPackedTiles;
+    }
+
+    public void setNbrPackedTiles(int nbrPackedTiles) {
+        this.nbrPackedTiles = nbrPackedTiles;
     }
 
     public void setNoFitTiles(List<TileDimensions> noFitTiles) {
-        this.noFitTiles = noFitTiles;
+        this.noFitTiles = new ArrayList<>(noFitTiles);
+        this.isNoFitTilesShared = false;
+    }
+
+    public void addNoFitTile(TileDimensions tileDimensions) {
+        if (isNoFitTilesShared) {
+            noFitTiles = new ArrayList<>(noFitTiles);
+            isNoFitTilesShared = false;
+        }
+        noFitTiles.add(tileDimensions);
     }
 
     public int getMaxDepth() {
@@ -239,11 +364,7 @@ public class Solution {
     }
 
     public int getNbrCuts() {
-        int count = 0;
-        for (Mosaic mosaic : mosaics) {
-            count += mosaic.getNbrCuts();
-        }
-        return count;
+        return nbrCuts;
     }
 
     public int getDistictTileSet() {
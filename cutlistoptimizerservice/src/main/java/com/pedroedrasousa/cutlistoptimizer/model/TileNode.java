@@ -3,7 +3,6 @@ package com.pedroedrasousa.cutlistoptimizer.model;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a tile that can be subdivided.
@@ -12,9 +11,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class TileNode {
 
-    private static final AtomicInteger NEXT_ID = new AtomicInteger(0);
+    private static final IdAllocator ID_ALLOCATOR = new IdAllocator();
 
-    private final int id;
+    private final long id;
 
     private int externalId = -1;
 
@@ -24,20 +23,43 @@ public class TileNode {
 
     private boolean isFinal;
 
+    /**
+     * Unused leaf none of the tiles still to be placed fit in, as of when it was created. Dead leaves are left out of
+     * the free space kept for the subtree, so the search doesn't visit them.
+     */
+    private boolean isDead;
+
     private Tile tile;
 
     boolean isAreaTotallyUsed = false;
 
     long totallyUsedArea = 0;
 
+    /**
+     * Structure id given by the last table interning this node, along with the id of the table, see
+     * {@link TileNodeInterner}. Volatile so both are always read together.
+     */
+    volatile long structureId;
+
+    /**
+     * Biggest width, height and area of the unused leaves of this subtree, computed once queried. As with the used
+     * area, the subtree must not be modified afterwards, modifying this node only resets its own values.
+     * Width is written last and volatile, so the other two are known once it's set. -1 if not computed.
+     */
+    private volatile int maxFreeWidth = -1;
+
+    private int maxFreeHeight;
+
+    private long maxFreeArea;
+
     public TileNode(int x1, int x2, int y1, int y2) {
         this.tile = new Tile(x1, x2, y1, y2);
-        this.id = NEXT_ID.getAndIncrement();
+        this.id = ID_ALLOCATOR.nextId();
     }
 
     public TileNode(TileDimensions tileDimensions) {
         this.tile = new Tile(tileDimensions);
-        this.id = NEXT_ID.getAndIncrement();
+        this.id = ID_ALLOCATOR.nextId();
     }
 
     public TileNode(TileNode tileNode) {
@@ -45,8 +67,9 @@ public class TileNode {
         this.id = tileNode.id;
         this.externalId = tileNode.externalId;
         this.isFinal = tileNode.isFinal;
+        this.isDead = tileNode.isDead;
 
-        // Recursively copy children
+        // Children are shared, not copied
         if (tileNode.getChild1() != null) {
             this.child1 = tileNode.getChild1();
         }
@@ -61,6 +84,7 @@ public class TileNode {
 
     public void setTile(Tile tile) {
         this.tile = tile;
+        this.maxFreeWidth = -1;
     }
 
     public boolean isFinal() {
@@ -69,6 +93,20 @@ public class TileNode {
 
     public void setFinal(boolean aFinal) {
         isFinal = aFinal;
+        this.maxFreeWidth = -1;
+    }
+
+    public boolean isDead() {
+        return isDead;
+    }
+
+    /**
+     * Marks this leaf as dead, see {@link #isDead}. Only meant for leaves that weren't queried yet, the free space of
+     * their parents must not be known.
+     */
+    public void markDead() {
+        isDead = true;
+        this.maxFreeWidth = -1;
     }
 
     public int getExternalId() {
@@ -79,7 +117,7 @@ public class TileNode {
         this.externalId = externalId;
     }
 
-    public int getId() {
+    public long getId() {
         return id;
     }
 
@@ -89,6 +127,7 @@ public class TileNode {
 
     public void setChild1(TileNode child1) {
         this.child1 = child1;
+        this.maxFreeWidth = -1;
     }
 
     public TileNode getChild2() {
@@ -97,15 +136,19 @@ public class TileNode {
 
     public void setChild2(TileNode child2) {
         this.child2 = child2;
+        this.maxFreeWidth = -1;
     }
 
     public boolean hasChildren() {
         return child1 != null || child2 != null;
     }
 
+    /**
+     * Finds the node with the same id as the specified one, ids are unique within a tree and kept by its copies.
+     */
     public TileNode findTile(TileNode tile) {
 
-        if (this.equals(tile)) {
+        if (this.id == tile.id) {
             return this;
         }
 
@@ -157,15 +200,20 @@ public class TileNode {
 
         TileNode tileNode = (TileNode)obj;
 
-        // TODO: No need for this many comparisons
+        // Structural equality, compares the whole subtree. Use findTile for looking up a node.
         return this.id == tileNode.id &&
                 this.getX1() == tileNode.getX1() &&
                 this.getX2() == tileNode.getX2() &&
                 this.getY1() == tileNode.getY1() &&
                 this.getY2() == tileNode.getY2() &&
                 this.isFinal() == tileNode.isFinal() &&
-                this.child1 == null && tileNode.child1 == null || (this.child1 != null && this.child1.equals(tileNode.child1)) &&
-                this.child2 == null && tileNode.child2 == null || (this.child2 != null && this.child2.equals(tileNode.child2));
+                (this.child1 == null ? tileNode.child1 == null : this.child1.equals(tileNode.child1)) &&
+                (this.child2 == null ? tileNode.child2 == null : this.child2.equals(tileNode.child2));
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (id ^ (id >>> 32));
     }
 
 
@@ -358,6 +406,9 @@ public class TileNode {
     }
 
 
+    /**
+     * @return Area of the biggest unused leaf, dead ones included.
+     */
     public long getBiggestArea() {
         long biggestArea = 0;
 
@@ -376,6 +427,70 @@ public class TileNode {
         return biggestArea;
     }
 
+    public int getMaxFreeWidth() {
+        return computeFreeSpace();
+    }
+
+    public int getMaxFreeHeight() {
+        computeFreeSpace();
+        return maxFreeHeight;
+    }
+
+    public long getMaxFreeArea() {
+        computeFreeSpace();
+        return maxFreeArea;
+    }
+
+    /**
+     * Whether a tile with the specified dimensions may fit in an unused leaf of this subtree.
+     * If not, the subtree can be skipped. If so, there's still no guarantee the biggest width and height belong to the
+     * same leaf.
+     */
+    public boolean mayFit(int w, int h) {
+        return w <= computeFreeSpace() && h <= maxFreeHeight && (long) w * h <= maxFreeArea;
+    }
+
+    /**
+     * Computes the biggest unused leaf values, children values are computed once and kept.
+     *
+     * @return Biggest width of the unused leaves.
+     */
+    private int computeFreeSpace() {
+
+        int width = maxFreeWidth;
+        if (width >= 0) {
+            return width;
+        }
+
+        int height = 0;
+        long area = 0;
+        width = 0;
+
+        if (child1 == null && child2 == null) {
+            if (!isFinal && !isDead) {
+                width = getWidth();
+                height = getHeight();
+                area = getArea();
+            }
+        } else {
+            if (child1 != null) {
+                width = Math.max(child1.computeFreeSpace(), width);
+                height = Math.max(child1.maxFreeHeight, height);
+                area = Math.max(child1.maxFreeArea, area);
+            }
+            if (child2 != null) {
+                width = Math.max(child2.computeFreeSpace(), width);
+                height = Math.max(child2.maxFreeHeight, height);
+                area = Math.max(child2.maxFreeArea, area);
+            }
+        }
+
+        maxFreeHeight = height;
+        maxFreeArea = area;
+        maxFreeWidth = width;
+        return width;
+    }
+
     public int getNbrFinalHorizontal() {
         int count = 0;
 
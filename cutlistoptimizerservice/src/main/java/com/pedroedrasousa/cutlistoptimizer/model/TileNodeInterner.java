@@ -0,0 +1,154 @@
+package com.pedroedrasousa.cutlistoptimizer.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interning table of tile node subtrees.
+ * Structurally identical subtrees, same coordinates and final tiles, get the same structure id, so comparing them is
+ * an integer compare. Ids are cached in the nodes, which must not be modified once interned.
+ * Nodes are not replaced by a canonical instance, identical subtrees built separately are still stored separately.
+ * Dead leaves are interned as unused ones, whether a leaf was marked dead depends on when it was created.
+ * Tables may also tell apart final tiles by their external id.
+ * Not thread safe, each table is meant to be confined to a thread.
+ */
+public class TileNodeInterner {
+
+    /**
+     * Ints describing each subtree: coordinates, whether final, external id and structure ids of both children.
+     */
+    private static final int KEY_SIZE = 8;
+
+    /**
+     * Ints taken by each slot of the table, its key followed by its structure id, 0 if the slot is free.
+     */
+    private static final int SLOT_SIZE = KEY_SIZE + 1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final AtomicInteger NEXT_TABLE_ID = new AtomicInteger(1);
+
+    /**
+     * Tags the structure ids cached in the nodes, nodes may be shared with threads using other tables.
+     * A new tag is taken whenever the table is cleared, so ids cached before aren't mistaken for current ones.
+     */
+    private long tableId = NEXT_TABLE_ID.getAndIncrement();
+
+    /**
+     * Open addressing table of the interned subtrees, with linear probing. Kept in a plain int array so tables living
+     * across many collections don't leave objects for the garbage collector to trace.
+     */
+    private int[] slots = new int[INITIAL_CAPACITY * SLOT_SIZE];
+
+    private int size;
+
+    private final int[] key = new int[KEY_SIZE];
+
+    private final boolean withExternalIds;
+
+    public TileNodeInterner() {
+        this(false);
+    }
+
+    /**
+     * @param withExternalIds Whether final tiles with different external ids are told apart.
+     */
+    public TileNodeInterner(boolean withExternalIds) {
+        this.withExternalIds = withExternalIds;
+    }
+
+    /**
+     * @return Structure id of the specified subtree, starting at 1.
+     */
+    public int intern(TileNode tileNode) {
+
+        long cached = tileNode.structureId;
+        if (cached >>> 32 == tableId) {
+            return (int) cached;
+        }
+
+        int child1 = tileNode.getChild1() != null ? intern(tileNode.getChild1()) : 0;
+        int child2 = tileNode.getChild2() != null ? intern(tileNode.getChild2()) : 0;
+
+        key[0] = tileNode.getX1();
+        key[1] = tileNode.getY1();
+        key[2] = tileNode.getX2();
+        key[3] = tileNode.getY2();
+        key[4] = tileNode.isFinal() ? 1 : 0;
+        key[5] = withExternalIds && tileNode.isFinal() ? tileNode.getExternalId() : -1;
+        key[6] = child1;
+        key[7] = child2;
+
+        int slot = findSlot(slots, key);
+        int structureId = slots[slot + KEY_SIZE];
+        if (structureId == 0) {
+            structureId = ++size;
+            System.arraycopy(key, 0, slots, slot, KEY_SIZE);
+            slots[slot + KEY_SIZE] = structureId;
+            if (size * 4 > getCapacity() * 3) {
+                grow();
+            }
+        }
+
+        tileNode.structureId = tableId << 32 | structureId;
+        return structureId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int getCapacity() {
+        return slots.length / SLOT_SIZE;
+    }
+
+    /**
+     * @return Index of the slot holding the specified key, or of the free slot where it belongs.
+     */
+    private static int findSlot(int[] slots, int[] key) {
+        int hash = 0;
+        for (int value : key) {
+            hash = 31 * hash + value;
+        }
+        hash *= 0x9E3779B9;
+        hash ^= hash >>> 16;
+
+        int mask = slots.length / SLOT_SIZE - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int slot = i * SLOT_SIZE;
+            if (slots[slot + KEY_SIZE] == 0 || matches(slots, slot, key)) {
+                return slot;
+            }
+        }
+    }
+
+    private static boolean matches(int[] slots, int slot, int[] key) {
+        for (int i = 0; i < KEY_SIZE; i++) {
+            if (slots[slot + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int[] oldSlots = slots;
+        slots = new int[oldSlots.length * 2];
+        int[] oldKey = new int[KEY_SIZE];
+        for (int slot = 0; slot < oldSlots.length; slot += SLOT_SIZE) {
+            if (oldSlots[slot + KEY_SIZE] != 0) {
+                System.arraycopy(oldSlots, slot, oldKey, 0, KEY_SIZE);
+                System.arraycopy(oldSlots, slot, slots, findSlot(slots, oldKey), SLOT_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Forgets every interned subtree, ids returned afterwards are not comparable with the ones returned before.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        tableId = NEXT_TABLE_ID.getAndIncrement();
+    }
+}
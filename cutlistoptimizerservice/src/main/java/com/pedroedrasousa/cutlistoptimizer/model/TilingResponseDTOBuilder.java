@@ -1,6 +1,9 @@
 package com.pedroedrasousa.cutlistoptimizer.model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TilingResponseDTOBuilder {
 
@@ -8,6 +11,11 @@ public class TilingResponseDTOBuilder {
 
     private String info;
 
+    /**
+     * Whether panels cut with the same layout are sent once, along with their count.
+     */
+    private boolean compact;
+
     public Solution getSolution() {
         return solution;
     }
@@ -26,6 +34,15 @@ public class TilingResponseDTOBuilder {
         return this;
     }
 
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public TilingResponseDTOBuilder setCompact(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
     public TillingResponseDTO build() {
 
         if (solution == null) {
@@ -34,19 +51,41 @@ public class TilingResponseDTOBuilder {
 
         TillingResponseDTO tillingResponseDTO = new TillingResponseDTO();
 
+        // Tile nodes are renumbered from 0 in every response, internal ids are only unique while searching
+        int[] nextId = new int[1];
+
+        TileNodeInterner interner = new TileNodeInterner(true);
+        Map<Integer, TillingResponseDTO.Mosaic> patterns = new HashMap<>();
+
         for (Mosaic tileNode : solution.getMosaics()) {
+            if (compact) {
+                int structureId = interner.intern(tileNode.getRootTileNode());
+                TillingResponseDTO.Mosaic pattern = patterns.get(structureId);
+                if (pattern != null) {
+                    pattern.setCount(pattern.getCount() + 1);
+                    continue;
+                }
+            }
+
+            // Mosaics may share a layout, each one is numbered on its own
+            Map<Long, Integer> ids = new HashMap<>();
+
             TillingResponseDTO.Mosaic mosaic = new TillingResponseDTO.Mosaic();
             mosaic.setUsedArea(tileNode.getRootTileNode().getUsedArea());
             mosaic.setUsedAreaRatio(tileNode.getRootTileNode().getUsedAreaRatio());
             mosaic.setNbrHorizontal(tileNode.getRootTileNode().getNbrFinalHorizontal());
             mosaic.setNbrVertical(tileNode.getRootTileNode().getNbrFinalVertical());
-            mosaic.setCuts(tileNode.getCuts());
+            mosaic.setCuts(renumber(tileNode.getCuts(), ids, nextId));
             mosaic.setNbrWasted(tileNode.getRootTileNode().getNbrUnusedTiles());
             mosaic.setHvRatio(tileNode.getHVDiff());
-            mosaic.setBase(new TillingResponseDTO.Tile(tileNode.getRootTileNode()));
             mosaic.setUnusedArea(tileNode.getUnusedArea());
-            addChildrenToList(tileNode.getRootTileNode(), mosaic.getTiles());
+            addChildrenToList(tileNode.getRootTileNode(), mosaic.getTiles(), ids, nextId);
+            mosaic.setBase(mosaic.getTiles().get(0));
             tillingResponseDTO.getMosaics().add(mosaic);
+
+            if (compact) {
+                patterns.put(interner.intern(tileNode.getRootTileNode()), mosaic);
+            }
         }
 
         for (TileDimensions tileDimension : solution.getNoFitTiles()) {
@@ -66,20 +105,49 @@ public class TilingResponseDTOBuilder {
      *
      * @param tileNode Node to traverse.
      * @param dtoList List to append child nodes.
+     * @param ids Response ids by tile node id.
+     * @param nextId Next response id to assign.
      */
-    private static void addChildrenToList(TileNode tileNode, List<TillingResponseDTO.Tile> dtoList) {
+    private static void addChildrenToList(TileNode tileNode, List<TillingResponseDTO.Tile> dtoList, Map<Long, Integer> ids, int[] nextId) {
         TillingResponseDTO.Tile tileDto = new TillingResponseDTO.Tile(tileNode);
+        tileDto.setId(getId(tileNode.getId(), ids, nextId));
         dtoList.add(tileDto);
         if (tileNode.hasChildren()) {
             tileDto.setHasChildren(true);
             if (tileNode.getChild1() != null) {
-                addChildrenToList(tileNode.getChild1(), dtoList);
+                addChildrenToList(tileNode.getChild1(), dtoList, ids, nextId);
             }
             if (tileNode.getChild2() != null) {
-                addChildrenToList(tileNode.getChild2(), dtoList);
+                addChildrenToList(tileNode.getChild2(), dtoList, ids, nextId);
             }
         } else {
             tileDto.setHasChildren(false);
         }
     }
+
+    /**
+     * Copies the specified cuts, referring to the tiles by their response ids.
+     */
+    private static List<Cut> renumber(List<Cut> cuts, Map<Long, Integer> ids, int[] nextId) {
+        List<Cut> renumberedCuts = new ArrayList<>(cuts.size());
+        for (Cut cut : cuts) {
+            renumberedCuts.add(new Cut(cut.getX1(), cut.getY1(), cut.getX2(), cut.getY2(), cut.getOriginalWidth(), cut.getOriginalHeight(),
+                    cut.getIsHorizontal(), cut.getCutCoords(), getId(cut.getOriginalTileId(), ids, nextId),
+                    getId(cut.getChild1TileId(), ids, nextId), getId(cut.getChild2TileId(), ids, nextId)));
+        }
+        return renumberedCuts;
+    }
+
+    /**
+     * Response id of the specified tile node id, assigned in order of appearance.
+     * Cuts may refer to nodes without area that aren't part of the tree, they get an id of their own.
+     */
+    private static int getId(long tileNodeId, Map<Long, Integer> ids, int[] nextId) {
+        Integer id = ids.get(tileNodeId);
+        if (id == null) {
+            id = nextId[0]++;
+            ids.put(tileNodeId, id);
+        }
+        return id;
+    }
 }
@@ -48,7 +48,7 @@ public class TillingRequestDTO {
     public String baseTilesToString() {
         StringBuilder sb = new StringBuilder();
         for (TileInfoDTO tile : baseTiles) {
-            if (tile.getCount() > 0) {
+            if (tile.getCount() > 0 || tile.isUnlimited()) {
                 sb.append(" " + tile.toString());
             }
         }
@@ -68,6 +68,12 @@ public class TillingRequestDTO {
 
         private boolean enabled;
 
+        /**
+         * Whether there's no limit on the number of available tiles, count is ignored.
+         * Only meaningful for base tiles.
+         */
+        private boolean unlimited;
+
         public TileInfoDTO() {}
 
         public int getId() {
@@ -110,9 +116,17 @@ public class TillingRequestDTO {
             this.enabled = enabled;
         }
 
+        public boolean isUnlimited() {
+            return unlimited;
+        }
+
+        public void setUnlimited(boolean unlimited) {
+            this.unlimited = unlimited;
+        }
+
         @Override
         public String toString() {
-            return "[" + width + "x" + height + "]*" + count + (enabled ? "" : "-disabled");
+            return "[" + width + "x" + height + "]*" + (unlimited ? "unlimited" : count) + (enabled ? "" : "-disabled");
         }
     }
 }
@@ -1,9 +1,12 @@
 package com.pedroedrasousa.cutlistoptimizer.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class TillingResponseDTO {
+public class TillingResponseDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private String returnCode;
 
@@ -86,7 +89,9 @@ public class TillingResponseDTO {
         }
     }
 
-    public static class Mosaic {
+    public static class Mosaic implements Serializable {
+
+        private static final long serialVersionUID = 1L;
 
         private Tile base;
 
@@ -108,6 +113,11 @@ public class TillingResponseDTO {
 
         private float hvRatio;
 
+        /**
+         * Number of panels cut with this layout, more than one only in compact responses.
+         */
+        private int count = 1;
+
         public Tile getBase() {
             return base;
         }
@@ -120,6 +130,14 @@ public class TillingResponseDTO {
             return tiles;
         }
 
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
         public void setTiles(List<Tile> tiles) {
             this.tiles = tiles;
         }
@@ -189,7 +207,9 @@ public class TillingResponseDTO {
         }
     }
 
-    public static class Tile {
+    public static class Tile implements Serializable {
+
+        private static final long serialVersionUID = 1L;
 
         private int id;
 
@@ -215,8 +235,10 @@ public class TillingResponseDTO {
             this.height = height;
         }
 
+        /**
+         * Tile with the specified node's placement, its id is set apart since responses renumber tile nodes.
+         */
         public Tile(TileNode tile) {
-            this.id = tile.getId();
             this.requestObjId = tile.getExternalId();
             this.x = tile.getX1();
             this.y = tile.getY1();
@@ -291,7 +313,9 @@ public class TillingResponseDTO {
         }
     }
 
-    public static class NoFitTile {
+    public static class NoFitTile implements Serializable {
+
+        private static final long serialVersionUID = 1L;
 
         private int id;
 
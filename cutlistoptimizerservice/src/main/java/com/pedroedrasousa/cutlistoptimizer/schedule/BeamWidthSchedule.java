@@ -0,0 +1,17 @@
+package com.pedroedrasousa.cutlistoptimizer.schedule;
+
+/**
+ * Number of solutions kept after placing each tile, as the placement of a permutation progresses.
+ */
+public interface BeamWidthSchedule {
+
+    /**
+     * @param baseBeamWidth Number of solutions to keep on average.
+     * @param tileIndex Index of the tile just placed, starting at 0.
+     * @param nbrTiles Number of tiles being placed.
+     * @param remainingArea Area of the tiles still to be placed.
+     * @param totalArea Area of all the tiles being placed.
+     * @return Number of solutions to keep, at least 1.
+     */
+    int getBeamWidth(int baseBeamWidth, int tileIndex, int nbrTiles, long remainingArea, long totalArea);
+}
@@ -0,0 +1,18 @@
+package com.pedroedrasousa.cutlistoptimizer.schedule;
+
+public class BeamWidthScheduleFactory {
+
+    public static BeamWidthSchedule getBeamWidthSchedule(String scheduleType) {
+        if (scheduleType == null) {
+            return null;
+        }
+        if (scheduleType.equalsIgnoreCase("CONSTANT")) {
+            return new ConstantBeamWidthSchedule();
+        } else if (scheduleType.equalsIgnoreCase("DEPTH")) {
+            return new DepthBeamWidthSchedule();
+        } else if (scheduleType.equalsIgnoreCase("PLACED_AREA")) {
+            return new PlacedAreaBeamWidthSchedule();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.pedroedrasousa.cutlistoptimizer.schedule;
+
+public class ConstantBeamWidthSchedule implements BeamWidthSchedule {
+    @Override
+    public int getBeamWidth(int baseBeamWidth, int tileIndex, int nbrTiles, long remainingArea, long totalArea) {
+        return Math.max(1, baseBeamWidth);
+    }
+}
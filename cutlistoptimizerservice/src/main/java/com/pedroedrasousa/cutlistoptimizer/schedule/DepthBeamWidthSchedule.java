@@ -0,0 +1,11 @@
+package com.pedroedrasousa.cutlistoptimizer.schedule;
+
+/**
+ * Beam widening with the number of tiles already placed.
+ */
+public class DepthBeamWidthSchedule extends LinearBeamWidthSchedule {
+    @Override
+    protected float getProgress(int tileIndex, int nbrTiles, long remainingArea, long totalArea) {
+        return nbrTiles > 1 ? (float) tileIndex / (float) (nbrTiles - 1) : 1.0f;
+    }
+}
@@ -0,0 +1,27 @@
+package com.pedroedrasousa.cutlistoptimizer.schedule;
+
+/**
+ * Beam widening linearly as placement progresses, from a fraction of the base width on the first tile to as much above
+ * it on the last one.
+ * Early tiles are placed in nearly empty panels where most choices are alike, while the last ones decide how well the
+ * panels are filled. The average width matches the base one, so the number of expanded solutions is about the same.
+ */
+public abstract class LinearBeamWidthSchedule implements BeamWidthSchedule {
+
+    /**
+     * Fraction of the base width kept on the first tile.
+     */
+    private static float MIN_FACTOR = 0.25f;
+
+    @Override
+    public int getBeamWidth(int baseBeamWidth, int tileIndex, int nbrTiles, long remainingArea, long totalArea) {
+        float progress = Math.min(1.0f, Math.max(0.0f, getProgress(tileIndex, nbrTiles, remainingArea, totalArea)));
+        float factor = MIN_FACTOR + 2.0f * (1.0f - MIN_FACTOR) * progress;
+        return Math.max(1, Math.round(baseBeamWidth * factor));
+    }
+
+    /**
+     * @return How far placement is, from 0 to 1.
+     */
+    protected abstract float getProgress(int tileIndex, int nbrTiles, long remainingArea, long totalArea);
+}
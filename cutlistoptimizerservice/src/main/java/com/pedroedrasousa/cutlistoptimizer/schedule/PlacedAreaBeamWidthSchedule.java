@@ -0,0 +1,12 @@
+package com.pedroedrasousa.cutlistoptimizer.schedule;
+
+/**
+ * Beam widening with the area of the tiles already placed.
+ * Big tiles usually come first, so the beam widens faster than with {@link DepthBeamWidthSchedule}.
+ */
+public class PlacedAreaBeamWidthSchedule extends LinearBeamWidthSchedule {
+    @Override
+    protected float getProgress(int tileIndex, int nbrTiles, long remainingArea, long totalArea) {
+        return totalArea > 0 ? 1.0f - (float) remainingArea / (float) totalArea : 1.0f;
+    }
+}
@@ -0,0 +1,105 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BeamSearchEngineTest {
+
+    private ThreadPoolExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new ThreadPoolExecutor(4, 4, 10, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(1000), new RejectedExecutionHandlerImpl());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static Configuration getConfiguration(String taskId) {
+        Configuration cfg = new Configuration();
+        cfg.setTaskId(taskId);
+        cfg.setAllowTileRotation(true);
+        cfg.setPriorities(Arrays.asList("LEAST_WASTED_AREA", "LEAST_NBR_CUTS"));
+        return cfg;
+    }
+
+    private SolverContext getContext(List<QuantifiedTileDimensions> tilesToFit, List<QuantifiedTileDimensions> stockTiles, Configuration cfg) {
+        RunningTasks.Task task = new RunningTasks.Task(cfg.getTaskId());
+        return new SolverContext(tilesToFit, stockTiles, cfg, task, new Incumbent(task, cfg), executor, 50);
+    }
+
+    /**
+     * The smallest stock candidates can't hold the tiles, greedy uses the biggest panel. Search must go on past the
+     * first round and find the panel fitting every tile with far less waste.
+     */
+    @Test
+    public void greedySolutionDoesNotStopTheSearch() {
+
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 600, 600), 3));
+
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 1800, 590), 5));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(11, 1100, 1100), 1));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(12, 1900, 1200), 1));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(13, 3000, 3000), 1));
+
+        // Search seeded with the greedy solution, as done on submission
+        SolverContext context = getContext(tilesToFit, stockTiles, getConfiguration("greedy"));
+        new GreedyEngine().solve(context);
+        Solution greedySolution = context.getIncumbent().getBest();
+        assertEquals(0, greedySolution.getNoFitTiles().size());
+        assertFalse(context.getIncumbent().isSolved());
+        new BeamSearchEngine().solve(context);
+        Solution best = context.getIncumbent().getBest();
+
+        // Search on its own
+        SolverContext searchContext = getContext(tilesToFit, stockTiles, getConfiguration("search"));
+        new BeamSearchEngine().solve(searchContext);
+        Solution searchBest = searchContext.getIncumbent().getBest();
+
+        assertEquals(0, best.getNoFitTiles().size());
+        assertTrue(Incumbent.getComparator(context.getCfg()).compare(best, searchBest) <= 0);
+        assertTrue(Incumbent.getComparator(context.getCfg()).compare(best, greedySolution) < 0);
+        assertEquals(1900L * 1200L - 3L * 600L * 600L, best.getUnusedArea());
+    }
+
+    /**
+     * Budget runs out long before any thread places every tile, their best partial solutions must still be offered.
+     */
+    @Test
+    public void offersPartialSolutionsWhenBudgetRunsOut() {
+
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 300, 200), 400));
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(2, 150, 100), 100));
+
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 2440, 1220), 300));
+
+        SolverContext context = getContext(tilesToFit, stockTiles, getConfiguration("partial"));
+        context.setBudget(200);
+        new BeamSearchEngine().solve(context);
+
+        Solution best = context.getIncumbent().getBest();
+        assertNotNull(best);
+        int nbrPlacedTiles = 0;
+        for (Mosaic mosaic : best.getMosaics()) {
+            nbrPlacedTiles += mosaic.getRootTileNode().getFinalTiles().size();
+        }
+        assertEquals(500, nbrPlacedTiles + best.getNoFitTiles().size());
+    }
+}
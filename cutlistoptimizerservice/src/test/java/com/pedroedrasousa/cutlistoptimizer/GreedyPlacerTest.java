@@ -0,0 +1,89 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.*;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class GreedyPlacerTest {
+
+    private static Configuration getConfiguration(boolean allowTileRotation) {
+        Configuration cfg = new Configuration();
+        cfg.setTaskId("greedy");
+        cfg.setCutThickness(3);
+        cfg.setAllowTileRotation(allowTileRotation);
+        return cfg;
+    }
+
+    /**
+     * @return Number of placed tiles by external id.
+     */
+    private static Map<Integer, Integer> countPlacedTiles(Solution solution) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (Mosaic mosaic : solution.getMosaics()) {
+            for (TileNode tileNode : mosaic.getRootTileNode().getFinalTiles()) {
+                Integer count = counts.get(tileNode.getExternalId());
+                counts.put(tileNode.getExternalId(), (count != null ? count : 0) + 1);
+            }
+        }
+        return counts;
+    }
+
+    @Test
+    public void placesEveryTileWhenStockSuffices() {
+
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 600, 400), 10));
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(2, 300, 200), 25));
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(3, 800, 350), 4));
+
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 2440, 1220), 20));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(11, 1000, 1000), 5));
+
+        for (boolean allowTileRotation : new boolean[] { false, true }) {
+            Solution solution = GreedyPlacer.place(tilesToFit, stockTiles, getConfiguration(allowTileRotation), 50);
+
+            assertEquals(0, solution.getNoFitTiles().size());
+            Map<Integer, Integer> counts = countPlacedTiles(solution);
+            assertEquals(Integer.valueOf(10), counts.get(1));
+            assertEquals(Integer.valueOf(25), counts.get(2));
+            assertEquals(Integer.valueOf(4), counts.get(3));
+        }
+    }
+
+    @Test
+    public void placesEveryTileFromUnlimitedStock() {
+
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 1000, 1000), 7));
+
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 1200, 1200), QuantifiedTileDimensions.UNLIMITED));
+
+        Solution solution = GreedyPlacer.place(tilesToFit, stockTiles, getConfiguration(true), 50);
+
+        assertEquals(0, solution.getNoFitTiles().size());
+        assertEquals(7, solution.getMosaics().size());
+        assertEquals(Integer.valueOf(7), countPlacedTiles(solution).get(1));
+    }
+
+    @Test
+    public void listsTilesNotFittingAnyPanel() {
+
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 490, 490), 2));
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(2, 2000, 100), 1));
+
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 1000, 1000), 1));
+
+        Solution solution = GreedyPlacer.place(tilesToFit, stockTiles, getConfiguration(true), 50);
+
+        assertEquals(1, solution.getNoFitTiles().size());
+        assertEquals(2, solution.getNoFitTiles().get(0).getId());
+        assertEquals(Integer.valueOf(2), countPlacedTiles(solution).get(1));
+    }
+}
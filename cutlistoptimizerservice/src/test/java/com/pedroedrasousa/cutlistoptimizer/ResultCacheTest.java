@@ -0,0 +1,118 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<QuantifiedTileDimensions> getTiles() {
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 600, 400), 10));
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(2, 300, 200), 25));
+        return tilesToFit;
+    }
+
+    private static List<QuantifiedTileDimensions> getStock() {
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 2440, 1220), 3));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(11, 1000, 1000), 4));
+        return stockTiles;
+    }
+
+    private static Configuration getConfiguration() {
+        Configuration cfg = new Configuration();
+        cfg.setTaskId("cache");
+        cfg.setCutThickness(3);
+        return cfg;
+    }
+
+    private static TillingResponseDTO getResponse() {
+        TillingResponseDTO response = new TillingResponseDTO();
+        response.setReturnCode("0");
+        response.setUnusedArea(1234);
+        TillingResponseDTO.Mosaic mosaic = new TillingResponseDTO.Mosaic();
+        mosaic.getTiles().add(new TillingResponseDTO.Tile(0, 0, 0, 2440, 1220));
+        mosaic.getCuts().add(new Cut(600, 0, 600, 1220, 2440, 1220, true, 600, 0, 1, 2));
+        response.getMosaics().add(mosaic);
+        return response;
+    }
+
+    @Test
+    public void keyDoesNotDependOnOrder() {
+        List<QuantifiedTileDimensions> tilesToFit = getTiles();
+        Collections.reverse(tilesToFit);
+
+        // Same stock, split in two entries and submitted in another order
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(21, 1000, 1000), 4));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(20, 2440, 1220), 1));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(22, 2440, 1220), 2));
+
+        assertEquals(ResultCache.getKey(getTiles(), getStock(), getConfiguration()),
+                ResultCache.getKey(tilesToFit, stockTiles, getConfiguration()));
+    }
+
+    @Test
+    public void keyDependsOnVersionAndConfiguration() {
+        String key = ResultCache.getKey(getTiles(), getStock(), getConfiguration());
+
+        assertNotEquals(ResultCache.getKey(getTiles(), getStock(), getConfiguration(), 1), key);
+
+        Configuration cfg = getConfiguration();
+        cfg.setCutThickness(4);
+        assertNotEquals(key, ResultCache.getKey(getTiles(), getStock(), cfg));
+
+        cfg = getConfiguration();
+        cfg.setWarmStartTaskId("previous");
+        assertNotEquals(key, ResultCache.getKey(getTiles(), getStock(), cfg));
+
+        // Task id isn't part of the request content
+        cfg = getConfiguration();
+        cfg.setTaskId("other");
+        assertEquals(key, ResultCache.getKey(getTiles(), getStock(), cfg));
+    }
+
+    @Test
+    public void resultsAreReadBackFromDisk() throws IOException {
+        String key = ResultCache.getKey(getTiles(), getStock(), getConfiguration());
+        new ResultCache(folder.getRoot().getPath()).put(key, getResponse());
+
+        TillingResponseDTO response = new ResultCache(folder.getRoot().getPath()).get(key);
+        assertNotNull(response);
+        assertEquals(1234, response.getUnusedArea());
+        assertEquals(2440, response.getMosaics().get(0).getTiles().get(0).getWidth());
+        assertEquals(2, response.getMosaics().get(0).getCuts().get(0).getChild2TileId());
+    }
+
+    @Test
+    public void filesHoldingOtherClassesAreDeleted() throws IOException {
+        File file = new File(folder.getRoot(), "other.ser");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(new HashMap<String, String>());
+        }
+
+        assertNull(new ResultCache(folder.getRoot().getPath()).get("other"));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void corruptedFilesAreDeleted() throws IOException {
+        File file = new File(folder.getRoot(), "corrupted.ser");
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] { 1, 2, 3, 4 });
+        }
+
+        assertNull(new ResultCache(folder.getRoot().getPath()).get("corrupted"));
+        assertFalse(file.exists());
+    }
+}
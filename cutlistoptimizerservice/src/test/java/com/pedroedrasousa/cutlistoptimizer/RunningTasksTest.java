@@ -0,0 +1,66 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.TillingResponseDTO;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RunningTasksTest {
+
+    @Test
+    public void computationStopsOnceNoTaskIsAttached() {
+        RunningTasks.Task leader = new RunningTasks.Task("leader");
+        assertTrue(leader.attach());
+        RunningTasks.Task follower = new RunningTasks.Task("follower", leader);
+
+        leader.detach();
+        assertFalse(leader.isStopped());
+        assertFalse(follower.isStopped());
+
+        follower.detach();
+        assertTrue(leader.isStopped());
+        assertTrue(follower.isStopped());
+    }
+
+    @Test
+    public void nothingIsAttachedToStoppedComputation() {
+        RunningTasks.Task leader = new RunningTasks.Task("stopped");
+        leader.detach();
+        assertTrue(leader.isStopped());
+        assertFalse(leader.attach());
+    }
+
+    @Test
+    public void attachedTaskFollowsLeader() {
+        RunningTasks.Task leader = new RunningTasks.Task("followed");
+        assertTrue(leader.attach());
+        RunningTasks.Task follower = new RunningTasks.Task("following", leader);
+
+        TillingResponseDTO solution = new TillingResponseDTO();
+        leader.setSolution(solution);
+        leader.setStatusMessage("Searching");
+        leader.setPercentageDone(50);
+
+        assertSame(solution, follower.getSolution());
+        assertEquals("Searching", follower.getStatusMessage());
+        assertEquals(50, follower.getPercentageDone());
+    }
+
+    @Test
+    public void removedTasksAreDetached() {
+        RunningTasks runningTasks = RunningTasks.getInstance();
+        RunningTasks.Task leader = new RunningTasks.Task("removedLeader");
+        assertTrue(leader.attach());
+        RunningTasks.Task follower = new RunningTasks.Task("removedFollower", leader);
+        runningTasks.addTask(leader);
+        runningTasks.addTask(follower);
+
+        runningTasks.removeTask("removedLeader");
+        assertNull(runningTasks.getTask("removedLeader"));
+        assertFalse(follower.isStopped());
+
+        runningTasks.removeTask("removedFollower");
+        assertNull(runningTasks.getTask("removedFollower"));
+        assertTrue(leader.isStopped());
+    }
+}
@@ -0,0 +1,36 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SearchProfileTest {
+
+    @Test
+    public void namedProfileIsKeptWhateverTheBudget() {
+        Configuration cfg = new Configuration();
+        cfg.setProfile("thorough");
+        cfg.setTimeBudget(1000);
+        assertSame(SearchProfile.THOROUGH, SearchProfile.getSearchProfile(cfg));
+    }
+
+    @Test
+    public void profileFollowsTheBudget() {
+        assertSame(SearchProfile.BALANCED, SearchProfile.getSearchProfile(0));
+        assertSame(SearchProfile.FAST, SearchProfile.getSearchProfile(2000));
+        assertSame(SearchProfile.THOROUGH, SearchProfile.getSearchProfile(600000));
+
+        SearchProfile previous = SearchProfile.FAST;
+        for (long budget = 6000; budget < 60000; budget += 6000) {
+            SearchProfile searchProfile = SearchProfile.getSearchProfile(budget);
+            assertTrue(searchProfile.getBeamWidth(0.5f) >= previous.getBeamWidth(0.5f));
+            assertTrue(searchProfile.getBeamWidth(1.0f) >= previous.getBeamWidth(1.0f));
+            assertTrue(searchProfile.getMaxNbrPermutations() >= previous.getMaxNbrPermutations());
+            assertTrue(searchProfile.getMaxNbrStockSolutions() >= previous.getMaxNbrStockSolutions());
+            previous = searchProfile;
+        }
+        assertTrue(previous.getBeamWidth(1.0f) <= SearchProfile.THOROUGH.getBeamWidth(1.0f));
+        assertTrue(previous.getMaxNbrPermutations() <= SearchProfile.THOROUGH.getMaxNbrPermutations());
+    }
+}
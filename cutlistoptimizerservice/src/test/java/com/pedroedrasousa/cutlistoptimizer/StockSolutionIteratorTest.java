@@ -0,0 +1,112 @@
+package com.pedroedrasousa.cutlistoptimizer;
+
+import com.pedroedrasousa.cutlistoptimizer.model.QuantifiedTileDimensions;
+import com.pedroedrasousa.cutlistoptimizer.model.TileDimensions;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class StockSolutionIteratorTest {
+
+    private static List<QuantifiedTileDimensions> getTiles() {
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 600, 400), 10));
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(2, 300, 200), 25));
+        return tilesToFit;
+    }
+
+    private static List<QuantifiedTileDimensions> getStock() {
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 2440, 1220), 3));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(11, 1000, 1000), 4));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(12, 700, 700), 5));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(13, 1200, 800), QuantifiedTileDimensions.UNLIMITED));
+        return stockTiles;
+    }
+
+    /**
+     * @return Every candidate returned by the iterator, the last resort one excluded.
+     */
+    private static List<StockSolution> getCandidates(StockSolutionIterator iterator, long requiredArea) {
+        List<StockSolution> candidates = new ArrayList<>();
+        StockSolution stockSolution;
+        while ((stockSolution = iterator.next()) != null) {
+            if (stockSolution.getArea() >= requiredArea) {
+                candidates.add(stockSolution);
+            }
+        }
+        return candidates;
+    }
+
+    @Test
+    public void candidatesComeLeastAreaFirstWithoutDuplicates() {
+        long requiredArea = 10L * 600 * 400 + 25L * 300 * 200;
+        StockSolutionIterator iterator = new StockSolutionIterator(getTiles(), getStock(), 0f, 0, 1, 6);
+        List<StockSolution> candidates = getCandidates(iterator, requiredArea);
+
+        assertFalse(candidates.isEmpty());
+        Set<StockSolution> distinct = new HashSet<>();
+        long previousArea = 0;
+        for (StockSolution candidate : candidates) {
+            assertTrue(distinct.add(candidate));
+            assertTrue(candidate.getArea() >= previousArea);
+            assertTrue(candidate.getStockTileDimensions().size() <= 6);
+            previousArea = candidate.getArea();
+        }
+    }
+
+    /**
+     * Every multiset of stock panels covering the required area must be returned, checked against brute force.
+     */
+    @Test
+    public void everyCandidateIsReturned() {
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 500, 500), 3));
+        long requiredArea = 3L * 500 * 500;
+
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 600, 600), 3));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(11, 1000, 600), 2));
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(12, 1200, 1000), 1));
+
+        int maxNbrTiles = 4;
+        Set<String> expected = new HashSet<>();
+        for (int a = 0; a <= 3; a++) {
+            for (int b = 0; b <= 2; b++) {
+                for (int c = 0; c <= 1; c++) {
+                    long area = a * 600L * 600 + b * 1000L * 600 + c * 1200L * 1000;
+                    if (a + b + c > 0 && a + b + c <= maxNbrTiles && area >= requiredArea) {
+                        expected.add(a + "," + b + "," + c);
+                    }
+                }
+            }
+        }
+
+        Set<String> returned = new HashSet<>();
+        StockSolutionIterator iterator = new StockSolutionIterator(tilesToFit, stockTiles, 0f, 0, 1, maxNbrTiles);
+        for (StockSolution candidate : getCandidates(iterator, requiredArea)) {
+            int[] counts = new int[3];
+            for (TileDimensions panel : candidate.getStockTileDimensions()) {
+                counts[panel.getId() - 10]++;
+            }
+            assertTrue(returned.add(counts[0] + "," + counts[1] + "," + counts[2]));
+        }
+
+        assertEquals(expected, returned);
+    }
+
+    @Test
+    public void excludedCandidatesAreSkipped() {
+        StockSolutionIterator iterator = new StockSolutionIterator(getTiles(), getStock(), 0f, 0, 1, 6);
+        StockSolution first = iterator.next();
+
+        StockSolutionIterator otherIterator = new StockSolutionIterator(getTiles(), getStock(), 0f, 0, 1, 6);
+        otherIterator.exclude(first);
+        StockSolution otherFirst = otherIterator.next();
+
+        assertNotEquals(first, otherFirst);
+        assertEquals(iterator.next(), otherFirst);
+    }
+}
@@ -0,0 +1,94 @@
+package com.pedroedrasousa.cutlistoptimizer.model;
+
+import com.pedroedrasousa.cutlistoptimizer.GreedyPlacer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SolutionTest {
+
+    private static Solution getSolution() {
+        List<QuantifiedTileDimensions> tilesToFit = new ArrayList<>();
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(1, 600, 400), 10));
+        tilesToFit.add(new QuantifiedTileDimensions(new TileDimensions(2, 300, 200), 25));
+
+        List<QuantifiedTileDimensions> stockTiles = new ArrayList<>();
+        stockTiles.add(new QuantifiedTileDimensions(new TileDimensions(10, 1220, 1220), 10));
+
+        Configuration cfg = new Configuration();
+        cfg.setTaskId("solution");
+        cfg.setCutThickness(3);
+        return GreedyPlacer.place(tilesToFit, stockTiles, cfg, 50);
+    }
+
+    /**
+     * Checks the totals kept incrementally against the ones computed from the mosaics.
+     */
+    private static void assertTotals(Solution solution) {
+        long unusedArea = 0;
+        int nbrCuts = 0;
+        long previousUnusedArea = 0;
+        for (Mosaic mosaic : solution.getMosaics()) {
+            unusedArea += mosaic.getRootTileNode().getUnusedArea();
+            nbrCuts += mosaic.getCuts().size();
+            assertTrue(mosaic.getUnusedArea() >= previousUnusedArea);
+            previousUnusedArea = mosaic.getUnusedArea();
+        }
+        assertEquals(unusedArea, solution.getUnusedArea());
+        assertEquals(nbrCuts, solution.getNbrCuts());
+    }
+
+    @Test
+    public void totalsFollowAddedAndRemovedMosaics() {
+        Solution solution = getSolution();
+        assertTrue(solution.getMosaics().size() > 1);
+        assertTrue(solution.getNbrCuts() > 0);
+        assertTotals(solution);
+
+        Mosaic mosaic = solution.getMosaics().get(1);
+        solution.removeMosaic(mosaic);
+        assertTotals(solution);
+
+        solution.addMosaic(mosaic);
+        solution.addMosaic(new Mosaic(new TileDimensions(11, 500, 500)));
+        assertTotals(solution);
+
+        solution.removeUnusedMosaics();
+        assertTotals(solution);
+    }
+
+    @Test
+    public void copiesKeepTheirOwnTotals() {
+        Solution solution = getSolution();
+        Mosaic excluded = solution.getMosaics().get(0);
+
+        Solution copy = new Solution(solution);
+        Solution copyWithoutMosaic = new Solution(solution, excluded);
+        assertTotals(copy);
+        assertTotals(copyWithoutMosaic);
+        assertEquals(solution.getMosaics().size() - 1, copyWithoutMosaic.getMosaics().size());
+
+        // Copies share the mosaics list until modified
+        copy.addMosaic(new Mosaic(new TileDimensions(11, 500, 500)));
+        copyWithoutMosaic.removeMosaic(copyWithoutMosaic.getMosaics().get(0));
+        assertTotals(solution);
+        assertTotals(copy);
+        assertTotals(copyWithoutMosaic);
+        assertEquals(solution.getMosaics().size() + 1, copy.getMosaics().size());
+    }
+
+    @Test
+    public void sharingIdenticalMosaicsKeepsTotals() {
+        Solution solution = getSolution();
+        long unusedArea = solution.getUnusedArea();
+        int nbrCuts = solution.getNbrCuts();
+
+        solution.shareIdenticalMosaics();
+        assertTotals(solution);
+        assertEquals(unusedArea, solution.getUnusedArea());
+        assertEquals(nbrCuts, solution.getNbrCuts());
+    }
+}
@@ -0,0 +1,94 @@
+package com.pedroedrasousa.cutlistoptimizer.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TileNodeInternerTest {
+
+    /**
+     * Panel split in a final tile on the left and an unused leaf on the right.
+     */
+    private static TileNode getPanel(int externalId, boolean isRightDead) {
+        TileNode root = new TileNode(0, 1000, 0, 500);
+        TileNode left = new TileNode(0, 400, 0, 500);
+        left.setFinal(true);
+        left.setExternalId(externalId);
+        TileNode right = new TileNode(403, 1000, 0, 500);
+        if (isRightDead) {
+            right.markDead();
+        }
+        root.setChild1(left);
+        root.setChild2(right);
+        return root;
+    }
+
+    @Test
+    public void identicalSubtreesBuiltSeparatelyHaveTheSameId() {
+        TileNodeInterner interner = new TileNodeInterner();
+        TileNode panel = getPanel(1, false);
+        TileNode otherPanel = getPanel(1, false);
+
+        assertNotEquals(panel.getId(), otherPanel.getId());
+        assertEquals(interner.intern(panel), interner.intern(otherPanel));
+        assertEquals(3, interner.size());
+    }
+
+    @Test
+    public void deadLeavesAreInternedAsUnusedOnes() {
+        TileNodeInterner interner = new TileNodeInterner();
+        assertEquals(interner.intern(getPanel(1, false)), interner.intern(getPanel(1, true)));
+    }
+
+    @Test
+    public void differentSubtreesHaveDifferentIds() {
+        TileNodeInterner interner = new TileNodeInterner();
+        TileNode panel = getPanel(1, false);
+        TileNode unusedPanel = new TileNode(0, 1000, 0, 500);
+
+        assertNotEquals(interner.intern(panel), interner.intern(unusedPanel));
+        assertNotEquals(interner.intern(panel.getChild1()), interner.intern(panel.getChild2()));
+    }
+
+    @Test
+    public void externalIdsAreOnlyToldApartWhenRequested() {
+        TileNodeInterner interner = new TileNodeInterner();
+        assertEquals(interner.intern(getPanel(1, false)), interner.intern(getPanel(2, false)));
+
+        TileNodeInterner externalIdsInterner = new TileNodeInterner(true);
+        assertNotEquals(externalIdsInterner.intern(getPanel(1, false)), externalIdsInterner.intern(getPanel(2, false)));
+    }
+
+    /**
+     * Ids handed before the table grows must still be handed afterwards.
+     */
+    @Test
+    public void idsAreKeptWhileTheTableGrows() {
+        TileNodeInterner interner = new TileNodeInterner();
+        int[] ids = new int[5000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = interner.intern(new TileNode(0, i + 1, 0, 1));
+        }
+        assertEquals(ids.length, interner.size());
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], interner.intern(new TileNode(0, i + 1, 0, 1)));
+        }
+        assertEquals(ids.length, interner.size());
+    }
+
+    /**
+     * Ids cached in the nodes by a cleared table must not be taken for current ones.
+     */
+    @Test
+    public void clearForgetsCachedIds() {
+        TileNodeInterner interner = new TileNodeInterner();
+        TileNode panel = getPanel(1, false);
+        interner.intern(new TileNode(0, 10, 0, 10));
+        int id = interner.intern(panel);
+
+        interner.clear();
+        assertEquals(0, interner.size());
+        assertNotEquals(id, interner.intern(panel));
+        assertEquals(3, interner.size());
+    }
+}